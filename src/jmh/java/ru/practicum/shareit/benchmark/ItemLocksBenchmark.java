@@ -0,0 +1,68 @@
+package ru.practicum.shareit.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.ItemLocks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock and release of an item lock from 8 threads, all on one item or spread over many.
+ * Each operation runs inside a bare transaction synchronization, as the booking service does.
+ * The results so far are inconclusive: on a single-CPU machine both cases gave about 1.3-1.5 ops/us,
+ * so they don't show any effect of striping. It has not been measured on more cores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ItemLocksBenchmark {
+
+    @Param({"1", "10000"})
+    private int items;
+    @Param("256")
+    private int stripes;
+
+    private ItemLocks locks;
+
+    @Setup
+    public void setUp() {
+        locks = new ItemLocks(stripes, Duration.ofSeconds(2), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void lockAndRelease() {
+        long itemId = ThreadLocalRandom.current().nextInt(items);
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            locks.lockUntilCompletion(itemId);
+            Blackhole.consumeCPU(100);
+        } finally {
+            List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            for (TransactionSynchronization sync : syncs) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        }
+    }
+}
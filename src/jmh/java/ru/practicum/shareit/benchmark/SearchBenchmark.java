@@ -0,0 +1,102 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranked index search against the LIKE query it replaces, on items named from a small
+ * Russian vocabulary so that every query word has many matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchBenchmark {
+    @Param("1000000")
+    private int items;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private ItemRepository repository;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .run();
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("insert into USERS (NAME, EMAIL) values ('owner', 'owner@mail.com')");
+        jdbc.update("insert into ITEMS (NAME, DESCRIPTION, AVAILABLE, OWNER_ID) " +
+                "select case mod(X, 7) when 0 then 'Дрель ударная' when 1 then 'Молоток' " +
+                "when 2 then 'Ёлка искусственная' when 3 then 'Набор для дрели' when 4 then 'Шуруповёрт' " +
+                "when 5 then 'Лестница' else 'Палатка' end || ' ' || mod(X, 1000), " +
+                "case mod(X, 5) when 0 then 'Почти новая' when 1 then 'С аккумулятором' " +
+                "when 2 then 'Для дачи' when 3 then 'Надёжная, мощная' else 'Без зарядки' end, " +
+                "mod(X, 10) <> 0, 1 from SYSTEM_RANGE(1, ?)", items);
+        context.getBean(ItemSearchIndex.class).rebuild();
+        itemService = context.getBean(ItemService.class);
+        repository = context.getBean(ItemRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemDto> index() {
+        return itemService.search("дрель", 0, 20);
+    }
+
+    @Benchmark
+    public List<ItemDto> indexTwoWords() {
+        return itemService.search("дрель аккумулятор", 0, 20);
+    }
+
+    @Benchmark
+    public List<ItemDto> indexFolded() {
+        return itemService.search("шуруповерт", 0, 20);
+    }
+
+    @Benchmark
+    public List<ItemDto> indexTypo() {
+        return itemService.search("молток", 0, 20);
+    }
+
+    @Benchmark
+    public List<Item> like() {
+        return transactionTemplate.execute(status -> repository.search("дрель", PageRequest.of(0, 20)).toList());
+    }
+}
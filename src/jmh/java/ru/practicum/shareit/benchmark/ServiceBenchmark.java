@@ -0,0 +1,105 @@
+package ru.practicum.shareit.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.ShareItApp;
+import ru.practicum.shareit.booking.BookerItemFilter;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.ItemSearchIndex;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service read paths against an in-memory H2 database seeded with SYSTEM_RANGE inserts.
+ * Every user owns items / users items, every item has bookings / items bookings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ServiceBenchmark {
+    private static final long OWNER_ID = 1;
+
+    @Param("10000")
+    private int users;
+    @Param("100000")
+    private int items;
+    @Param("500000")
+    private int bookings;
+    @Param("200000")
+    private int comments;
+
+    private ConfigurableApplicationContext context;
+    private ItemService itemService;
+    private BookingService bookingService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShareItApp.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties("spring.jpa.show-sql=false", "logging.level.root=WARN")
+                .run();
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("insert into USERS (NAME, EMAIL) " +
+                "select 'user' || X, 'user' || X || '@mail.com' from SYSTEM_RANGE(1, ?)", users);
+        jdbc.update("insert into ITEMS (NAME, DESCRIPTION, AVAILABLE, OWNER_ID) " +
+                "select case mod(X, 100) when 0 then 'Дрель ' else 'Молоток ' end || X, " +
+                "'Описание вещи ' || X, mod(X, 10) <> 0, mod(X, ?) + 1 from SYSTEM_RANGE(1, ?)", users, items);
+        jdbc.update("insert into BOOKINGS (ID, START_DATE, END_DATE, ITEM_ID, BOOKER_ID, STATUS) " +
+                "select next value for BOOKINGS_SEQ, dateadd('HOUR', X - ? / 2, now()), dateadd('HOUR', X - ? / 2 + 2, now()), " +
+                "mod(X, ?) + 1, mod(X * 7, ?) + 1, " +
+                "case mod(X, 4) when 0 then 'WAITING' when 1 then 'REJECTED' else 'APPROVED' end " +
+                "from SYSTEM_RANGE(1, ?)", bookings, bookings, items, users, bookings);
+        jdbc.update("update BOOKINGS b set OWNER_ID = (select i.OWNER_ID from ITEMS i where i.ID = b.ITEM_ID)");
+        jdbc.update("insert into COMMENTS (TEXT, ITEM_ID, AUTHOR_ID, CREATED) " +
+                "select 'Комментарий ' || X, mod(X, ?) + 1, mod(X * 3, ?) + 1, now() from SYSTEM_RANGE(1, ?)",
+                items, users, comments);
+        jdbc.update("update ITEMS i set COMMENT_COUNT = (select count(*) from COMMENTS c where c.ITEM_ID = i.ID)");
+        context.getBean(ItemSearchIndex.class).rebuild();
+        context.getBean(BookerItemFilter.class).rebuild();
+        itemService = context.getBean(ItemService.class);
+        bookingService = context.getBean(BookingService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ItemDto> getItemsByOwner() {
+        return itemService.getItemsByOwner(OWNER_ID, 0, 20);
+    }
+
+    @Benchmark
+    public List<ItemDto> search() {
+        return itemService.search("дрель", 0, 20);
+    }
+
+    @Benchmark
+    public List<BookingDto> getListByOwner() {
+        return bookingService.getListByOwner(OWNER_ID, "ALL", 0, 20);
+    }
+}
@@ -0,0 +1,30 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Sequence for batched booking inserts. Starts after the ids already issued by the identity column.
+ * Hibernate's pooled optimizer treats a fetched value as the top of a block of {@link #ALLOCATION_SIZE} ids,
+ * so the first value is set a whole block above the current maximum.
+ * The identity on BOOKINGS.ID is dropped, so ids come only from the sequence.
+ */
+public class V3__Add_bookings_sequence extends BaseJavaMigration {
+    public static final int ALLOCATION_SIZE = 50;
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            long start;
+            try (ResultSet rs = statement.executeQuery("select coalesce(max(ID), 0) + " + ALLOCATION_SIZE + " from BOOKINGS")) {
+                rs.next();
+                start = rs.getLong(1);
+            }
+            statement.execute("create sequence BOOKINGS_SEQ start with " + start + " increment by " + ALLOCATION_SIZE);
+            statement.execute("alter table BOOKINGS alter column ID drop identity");
+        }
+    }
+}
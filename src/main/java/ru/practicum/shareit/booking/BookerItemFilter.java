@@ -0,0 +1,109 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of (booker, item) pairs that have an APPROVED booking.
+ * A miss proves the booker never had an approved booking of the item, so such comment
+ * attempts are rejected without a query; a hit still goes to the database for the end date.
+ * Pairs are only added: a booking rejected after approval stays a harmless false positive
+ * until the next rebuild.
+ * Only approvals made by this JVM are added after the rebuild, so a miss is a definite no only
+ * when this is the single application instance. The filter is therefore off unless
+ * {@code shareit.booker-item-filter.enabled} is set, and then every pair is reported as possible.
+ */
+@Slf4j
+@Component
+public class BookerItemFilter {
+    private static final int LOAD_BATCH = 10_000;
+    private static final int HASHES = 7;
+
+    private final BookingRepository repository;
+    private final boolean enabled;
+    private final AtomicLongArray bits;
+    private final long size;
+    private volatile boolean ready;
+
+    public BookerItemFilter(BookingRepository repository,
+                            @Value("${shareit.booker-item-filter.enabled:false}") boolean enabled,
+                            @Value("${shareit.booker-item-filter.expected-pairs:1000000}") int expectedPairs) {
+        this.repository = repository;
+        this.enabled = enabled;
+        // ~10 bits per pair with 7 hashes gives about 1% false positives at the expected size
+        this.size = enabled ? Math.max(64, (long) expectedPairs * 10) : 64;
+        this.bits = new AtomicLongArray((int) ((size + 63) / 64));
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long lastId = 0;
+        int count = 0;
+        List<BookingDtoItem> batch;
+        do {
+            batch = repository.findSlotsByStatusAndIdAfter(BookingStatus.APPROVED, lastId,
+                    PageRequest.ofSize(LOAD_BATCH));
+            for (BookingDtoItem slot : batch) {
+                add(slot.getBookerId(), slot.getItemId());
+                lastId = slot.getId();
+            }
+            count += batch.size();
+        } while (batch.size() == LOAD_BATCH);
+        ready = true;
+        log.info("Booker/item filter built: {} approved bookings", count);
+    }
+
+    public void add(long bookerId, long itemId) {
+        long h1 = mix(bookerId * 31 + itemId);
+        long h2 = mix(h1 ^ itemId) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, size);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long old;
+            do {
+                old = bits.get(word);
+            } while ((old & mask) == 0 && !bits.compareAndSet(word, old, old | mask));
+        }
+    }
+
+    public boolean mightContain(long bookerId, long itemId) {
+        if (!ready) {
+            return true;
+        }
+        long h1 = mix(bookerId * 31 + itemId);
+        long h2 = mix(h1 ^ itemId) | 1;
+        for (int i = 0; i < HASHES; i++) {
+            long bit = Math.floorMod(h1 + i * h2, size);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,131 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
+import ru.practicum.shareit.common.TransactionCallbacks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.TreeSet;
+
+/**
+ * Per-item index of APPROVED booking intervals.
+ * Approved intervals of one item never overlap, so a set sorted by start answers
+ * "is [start, end) free" with a single floor lookup.
+ * Items are loaded from the database on first access and then kept in step with booking writes;
+ * a write committed while its item is loading waits for the load and is applied on top of it.
+ * The cache is bounded by the total number of cached slots rather than items, since one
+ * long-lived item can hold far more slots than many new ones; entries expire so that approvals made by other
+ * instances show up in last/next bookings and item ETags after at most the expiry time.
+ * The same set gives an item's last and next approved booking relative to any moment,
+ * so these need no rollover as time passes booking boundaries.
+ */
+@Component
+public class BookingAvailabilityIndex {
+
+    private static final Comparator<BookingDtoItem> BY_START = Comparator
+            .comparing(BookingDtoItem::getStart)
+            .thenComparing(BookingDtoItem::getId);
+
+    private final BookingRepository repository;
+    private final Cache<Long, TreeSet<BookingDtoItem>> items;
+
+    public BookingAvailabilityIndex(BookingRepository repository,
+                                    @Value("${shareit.availability.max-slots:1000000}") long maxSlots,
+                                    @Value("${shareit.availability.expire-after-write:1m}") Duration expireAfterWrite) {
+        this.repository = repository;
+        long ttl = expireAfterWrite.toNanos();
+        this.items = Caffeine.newBuilder()
+                .maximumWeight(maxSlots)
+                .weigher((Long id, TreeSet<BookingDtoItem> slots) -> slots.size() + 1)
+                .expireAfter(new Expiry<Long, TreeSet<BookingDtoItem>>() {
+                    @Override
+                    public long expireAfterCreate(Long key, TreeSet<BookingDtoItem> value, long currentTime) {
+                        return ttl;
+                    }
+
+                    // local updates keep the load time, so a hot item is still reloaded on schedule
+                    @Override
+                    public long expireAfterUpdate(Long key, TreeSet<BookingDtoItem> value, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long key, TreeSet<BookingDtoItem> value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public boolean isFree(long itemId, LocalDateTime start, LocalDateTime end, long excludeBookingId) {
+        TreeSet<BookingDtoItem> slots = getSlots(itemId);
+        synchronized (slots) {
+            BookingDtoItem probe = new BookingDtoItem(Long.MAX_VALUE, null, end, null);
+            BookingDtoItem slot = slots.lower(probe);
+            while (slot != null && slot.getStart().isEqual(end)) {
+                slot = slots.lower(slot);
+            }
+            if (slot != null && slot.getId() == excludeBookingId) {
+                slot = slots.lower(slot);
+            }
+            return slot == null || !slot.getEnd().isAfter(start);
+        }
+    }
+
+    public BookingDtoItem lastBefore(long itemId, LocalDateTime moment) {
+        TreeSet<BookingDtoItem> slots = getSlots(itemId);
+        synchronized (slots) {
+            return slots.lower(new BookingDtoItem(Long.MIN_VALUE, null, moment, null));
+        }
+    }
+
+    public BookingDtoItem nextAfter(long itemId, LocalDateTime moment) {
+        TreeSet<BookingDtoItem> slots = getSlots(itemId);
+        synchronized (slots) {
+            return slots.higher(new BookingDtoItem(Long.MAX_VALUE, null, moment, null));
+        }
+    }
+
+    public void add(long itemId, BookingDtoItem slot) {
+        TransactionCallbacks.afterCommit(() -> items.asMap().compute(itemId, (id, slots) -> {
+            if (slots != null) {
+                synchronized (slots) {
+                    slots.add(slot);
+                }
+            }
+            return slots;
+        }));
+    }
+
+    public void remove(long itemId, long bookingId) {
+        TransactionCallbacks.afterCommit(() -> items.asMap().compute(itemId, (id, slots) -> {
+            if (slots != null) {
+                synchronized (slots) {
+                    slots.removeIf(s -> s.getId() == bookingId);
+                }
+            }
+            return slots;
+        }));
+    }
+
+    public void evict(long itemId) {
+        TransactionCallbacks.afterCommit(() -> items.invalidate(itemId));
+    }
+
+    private TreeSet<BookingDtoItem> getSlots(long itemId) {
+        return items.get(itemId, id -> {
+            TreeSet<BookingDtoItem> loaded = new TreeSet<>(BY_START);
+            loaded.addAll(repository.findSlotsByItemIdAndStatus(id, BookingStatus.APPROVED));
+            return loaded;
+        });
+    }
+}
@@ -1,7 +1,9 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,20 +13,34 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoPost;
+import ru.practicum.shareit.common.Headers;
+import ru.practicum.shareit.common.NdjsonWriter;
+import ru.practicum.shareit.common.RequestExecutor;
+import ru.practicum.shareit.common.StreamExecutor;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
 @RequestMapping(path = "/bookings")
 public class BookingController {
-
     @Autowired
     private BookingService service;
+    @Autowired
+    private RequestExecutor executor;
+    @Autowired
+    private StreamExecutor streams;
+    @Autowired
+    private ObjectMapper mapper;
 
     @PostMapping
     public BookingDto create(@Valid @RequestBody BookingDtoPost dto,
@@ -35,6 +51,13 @@ public class BookingController {
         return bookingDto;
     }
 
+    @PostMapping("/batch")
+    public List<BookingBatchResult> createBatch(@RequestBody List<BookingDtoPost> dtos,
+                                                @RequestHeader("X-Sharer-User-Id") Long userId) {
+        log.info("POST /bookings/batch size={} userId={}", dtos.size(), userId);
+        return service.createBatch(dtos, userId);
+    }
+
     @PatchMapping("/{itemId}")
     public BookingDto approve(@PathVariable long itemId,
                               @RequestParam Boolean approved,
@@ -46,33 +69,62 @@ public class BookingController {
     }
 
     @GetMapping("/{id}")
-    public BookingDto getById(@PathVariable long id,
-                              @RequestHeader("X-Sharer-User-Id") Long userId) {
+    public CompletableFuture<BookingDto> getById(@PathVariable long id,
+                                                 @RequestHeader("X-Sharer-User-Id") Long userId) {
         log.info("GET /bookings/{}", id);
-        return service.getById(id, userId);
+        return executor.supply(() -> service.getById(id, userId));
     }
 
     @GetMapping
-    public List<BookingDto> getList(@RequestParam(defaultValue = "ALL") String state,
-                                    @RequestHeader("X-Sharer-User-Id") Long userId,
-                                    @RequestParam(defaultValue = "0")
-                                    @Min(0) int from,
-                                    @RequestParam(defaultValue = "10")
-                                    @Min(0) int size) {
+    public CompletableFuture<List<BookingDto>> getList(@RequestParam(defaultValue = "ALL") String state,
+                                                       @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                       @RequestParam(defaultValue = "0")
+                                                       @Min(0) int from,
+                                                       @RequestParam(defaultValue = "10")
+                                                       @Min(0) int size,
+                                                       @RequestParam(required = false) String after,
+                                                       HttpServletResponse response) {
         log.info("GET /bookings/state={}", state);
-        List<BookingDto> list = service.getListByBooker(userId, state, from, size);
-        return list;
+        if (after != null) {
+            return executor.supply(() -> toList(service.getSliceByBooker(userId, state, after, size), response));
+        }
+        return executor.supply(() -> service.getListByBooker(userId, state, from, size));
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getListByOwner(@RequestParam(defaultValue = "ALL") String state,
-                                           @RequestHeader("X-Sharer-User-Id") Long userId,
-                                           @RequestParam(defaultValue = "0")
-                                           @Min(0) int from,
-                                           @RequestParam(defaultValue = "10")
-                                           @Min(0) int size) {
-        log.info("GET /bookings/state={}", state);
-        List<BookingDto> list = service.getListByOwner(userId, state, from, size);
+    public CompletableFuture<List<BookingDto>> getListByOwner(@RequestParam(defaultValue = "ALL") String state,
+                                                              @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                              @RequestParam(defaultValue = "0")
+                                                              @Min(0) int from,
+                                                              @RequestParam(defaultValue = "10")
+                                                              @Min(0) int size,
+                                                              @RequestParam(required = false) String after,
+                                                              HttpServletResponse response) {
+        log.info("GET /bookings/owner/state={}", state);
+        if (after != null) {
+            return executor.supply(() -> toList(service.getSliceByOwner(userId, state, after, size), response));
+        }
+        return executor.supply(() -> service.getListByOwner(userId, state, from, size));
+    }
+
+    @GetMapping("/owner/export")
+    public CompletableFuture<Void> exportByOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                 HttpServletResponse response) {
+        log.info("GET /bookings/owner/export userId={}", userId);
+        return streams.stream(response, NdjsonWriter.NDJSON, out -> {
+            try (NdjsonWriter writer = new NdjsonWriter(mapper, out)) {
+                service.exportByOwner(userId, writer::write);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    private static List<BookingDto> toList(Slice<BookingDto> slice, HttpServletResponse response) {
+        List<BookingDto> list = slice.getContent();
+        if (slice.hasNext()) {
+            response.setHeader(Headers.NEXT_CURSOR, BookingCursor.of(list.get(list.size() - 1)).encode());
+        }
         return list;
     }
 }
\ No newline at end of file
@@ -5,12 +5,15 @@ import lombok.NoArgsConstructor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoItem;
 import ru.practicum.shareit.booking.dto.BookingDtoPost;
+import ru.practicum.shareit.booking.dto.BookingStateEntry;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.model.User;
 
+import java.time.temporal.ChronoUnit;
+
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class BookingMapper {
     public static BookingDto toBookingDto(Booking booking) {
@@ -36,17 +39,21 @@ public class BookingMapper {
                 .bookerId(booking.getBooker().getId())
                 .start(booking.getStart())
                 .end(booking.getEnd())
+                .itemId(booking.getItem().getId())
                 .build();
     }
 
+    public static BookingStateEntry toBookingStateEntry(Booking booking) {
+        return new BookingStateEntry(booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus());
+    }
+
     public static Booking toBooking(BookingDtoPost dto, Item item, User booker) {
         if (dto == null) {
             return null;
         }
         return Booking.builder()
-                .id(-1)
-                .start(dto.getStart())
-                .end(dto.getEnd())
+                .start(dto.getStart().truncatedTo(ChronoUnit.MICROS))
+                .end(dto.getEnd().truncatedTo(ChronoUnit.MICROS))
                 .item(item)
                 .booker(booker)
                 .status(BookingStatus.WAITING)
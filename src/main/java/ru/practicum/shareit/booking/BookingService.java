@@ -1,17 +1,28 @@
 package ru.practicum.shareit.booking;
 
+import org.springframework.data.domain.Slice;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoPost;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
     BookingDto create(BookingDtoPost bookingDto, long bookerId);
 
+    List<BookingBatchResult> createBatch(List<BookingDtoPost> bookingDtos, long bookerId);
+
     List<BookingDto> getListByBooker(long bookerId, String state, int from, int size);
 
     List<BookingDto> getListByOwner(long ownerId, String state, int from, int size);
 
+    Slice<BookingDto> getSliceByBooker(long bookerId, String state, String after, int size);
+
+    Slice<BookingDto> getSliceByOwner(long ownerId, String state, String after, int size);
+
+    void exportByOwner(long ownerId, Consumer<BookingDto> consumer);
+
     BookingDto approve(long bookingId, long userId, boolean approved);
 
     BookingDto getById(long id, long userId);
@@ -4,29 +4,47 @@ import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoPost;
 import ru.practicum.shareit.booking.dto.State;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.common.TransactionCallbacks;
 import ru.practicum.shareit.exceptions.BadRequestException;
+import ru.practicum.shareit.exceptions.ConflictException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.StatusException;
 import ru.practicum.shareit.exceptions.ValidationException;
 import ru.practicum.shareit.item.dao.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -41,8 +59,23 @@ public class BookingServiceImpl implements BookingService {
     private ItemRepository itemRepository;
     @Autowired
     private UserRepository userRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BookingAvailabilityIndex availabilityIndex;
+    @Autowired
+    private BookingStateIndex stateIndex;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private ItemLocks itemLocks;
+    @Autowired
+    private BookerItemFilter bookerItemFilter;
+    @Value("${shareit.booking.batch-max:1000}")
+    private int maxBatch;
 
     private final Sort sortDesc = Sort.by(Sort.Direction.DESC, "start");
+    private final Sort sortSeek = Sort.by(Sort.Direction.DESC, "start", "id");
 
     @Override
     @Transactional
@@ -65,12 +98,94 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidationException("Item is unavailable");
         }
 
+        itemLocks.lockUntilCompletion(item.getId());
+        if (!availabilityIndex.isFree(item.getId(), bookingDto.getStart(), bookingDto.getEnd(), -1)) {
+            throw new ValidationException("Item #" + item.getId() + " is already booked for this period");
+        }
+
         Booking booking = BookingMapper.toBooking(bookingDto, item, user);
 
         booking = repository.save(booking);
+        stateIndex.put(bookerId, item.getOwner().getId(), BookingMapper.toBookingStateEntry(booking));
         return BookingMapper.toBookingDto(booking);
     }
 
+    @Override
+    @Transactional
+    public List<BookingBatchResult> createBatch(List<BookingDtoPost> bookingDtos, long bookerId) {
+        if (bookingDtos.size() > maxBatch) {
+            throw new BadRequestException("Не более " + maxBatch + " бронирований за запрос");
+        }
+        User user = userRepository.findById(bookerId)
+                .orElseThrow(() -> new NotFoundException("User #" + bookerId + " not found"));
+        List<Long> itemIds = bookingDtos.stream()
+                .filter(Objects::nonNull)
+                .map(BookingDtoPost::getItemId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        itemLocks.lockAllUntilCompletion(items.keySet());
+
+        BookingBatchResult[] results = new BookingBatchResult[bookingDtos.size()];
+        Map<Long, List<BookingDtoPost>> accepted = new HashMap<>();
+        List<Booking> bookings = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < bookingDtos.size(); i++) {
+            BookingDtoPost dto = bookingDtos.get(i);
+            String error = dto == null ? "Booking must not be null"
+                    : validateBatchEntry(dto, items.get(dto.getItemId()), bookerId, accepted);
+            if (error != null) {
+                results[i] = new BookingBatchResult(i, null, error);
+                continue;
+            }
+            accepted.computeIfAbsent(dto.getItemId(), id -> new ArrayList<>()).add(dto);
+            bookings.add(BookingMapper.toBooking(dto, items.get(dto.getItemId()), user));
+            positions.add(i);
+        }
+
+        bookings = repository.saveAll(bookings);
+        for (int i = 0; i < bookings.size(); i++) {
+            int pos = positions.get(i);
+            Booking booking = bookings.get(i);
+            stateIndex.put(bookerId, booking.getItem().getOwner().getId(), BookingMapper.toBookingStateEntry(booking));
+            results[pos] = new BookingBatchResult(pos, BookingMapper.toBookingDto(booking), null);
+        }
+        log.info("Batch of {} bookings: {} created", bookingDtos.size(), bookings.size());
+        return Arrays.asList(results);
+    }
+
+    // same rules as create, and entries of one batch must not overlap each other on the same item
+    private String validateBatchEntry(BookingDtoPost dto, Item item, long bookerId,
+                                      Map<Long, List<BookingDtoPost>> accepted) {
+        Set<ConstraintViolation<BookingDtoPost>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        if (!dto.getEnd().isAfter(dto.getStart())) {
+            return "End must be after Start";
+        }
+        if (item == null) {
+            return "Item #" + dto.getItemId() + " not found";
+        }
+        if (item.getOwner().getId() == bookerId) {
+            return "Owner can't book item";
+        }
+        if (!item.isAvailable()) {
+            return "Item is unavailable";
+        }
+        boolean overlaps = accepted.getOrDefault(item.getId(), List.of()).stream()
+                .anyMatch(other -> other.getStart().isBefore(dto.getEnd()) && dto.getStart().isBefore(other.getEnd()));
+        if (overlaps || !availabilityIndex.isFree(item.getId(), dto.getStart(), dto.getEnd(), -1)) {
+            return "Item #" + item.getId() + " is already booked for this period";
+        }
+        return null;
+    }
+
     @Override
     public List<BookingDto> getListByBooker(long bookerId, String stateName, int from, int size) {
         if (from < 0 || size <= 0) {
@@ -78,13 +193,16 @@ public class BookingServiceImpl implements BookingService {
         }
 
         Pageable pageable = PageRequest.of(from / size, size, sortDesc);
-        User user = userRepository.findById(bookerId)
-                .orElseThrow(() -> new NotFoundException("User #" + bookerId + " not found"));
+        userService.getUser(bookerId);
         List<Booking> list;
 
         State state = getState(stateName);
         LocalDateTime now = LocalDateTime.now();
 
+        if (stateIndex.isEnabled()) {
+            return loadInOrder(stateIndex.findByBooker(bookerId, state, now, from / size * size, size));
+        }
+
         switch (state) {
             case FUTURE:
                 list = repository.findByBookerIdAndStartAfter(bookerId, now, pageable).toList();
@@ -102,7 +220,7 @@ public class BookingServiceImpl implements BookingService {
                 list = repository.findByBookerIdAndStartBeforeAndEndAfter(bookerId, now, now, pageable).toList();
                 break;
             default:
-                list = repository.findByBooker_Id(bookerId, pageable).toList();
+                list = repository.findByBookerId(bookerId, pageable).toList();
         }
 
         List<BookingDto> res = list.stream().map(BookingMapper::toBookingDto)
@@ -110,6 +228,19 @@ public class BookingServiceImpl implements BookingService {
         return res;
     }
 
+    @Override
+    public void exportByOwner(long ownerId, Consumer<BookingDto> consumer) {
+        userService.getUser(ownerId);
+        int count = 0;
+        try (Stream<BookingDto> stream = repository.streamDtoByOwner(ownerId)) {
+            for (BookingDto booking : (Iterable<BookingDto>) stream::iterator) {
+                consumer.accept(booking);
+                count++;
+            }
+        }
+        log.info("Exported {} bookings of owner #{}", count, ownerId);
+    }
+
     @Override
     public List<BookingDto> getListByOwner(long ownerId, String stateName, int from, int size) {
         if (from < 0 || size <= 0) {
@@ -117,31 +248,34 @@ public class BookingServiceImpl implements BookingService {
         }
 
         Pageable pageable = PageRequest.of(from / size, size, sortDesc);
-        User user = userRepository.findById(ownerId)
-                .orElseThrow(() -> new NotFoundException("User #" + ownerId + " not found"));
+        userService.getUser(ownerId);
         List<Booking> list;
 
         State state = getState(stateName);
         LocalDateTime now = LocalDateTime.now();
 
+        if (stateIndex.isEnabled()) {
+            return loadInOrder(stateIndex.findByOwner(ownerId, state, now, from / size * size, size));
+        }
+
         switch (state) {
             case FUTURE:
-                list = repository.findByItemOwnerIdAndStartAfter(ownerId, now, pageable).toList();
+                list = repository.findByOwnerIdAndStartAfter(ownerId, now, pageable).toList();
                 break;
             case PAST:
-                list = repository.findByItemOwnerIdAndEndBefore(ownerId, now, pageable).toList();
+                list = repository.findByOwnerIdAndEndBefore(ownerId, now, pageable).toList();
                 break;
             case WAITING:
-                list = repository.findByItemOwnerIdAndStatus(ownerId, BookingStatus.WAITING, pageable).toList();
+                list = repository.findByOwnerIdAndStatus(ownerId, BookingStatus.WAITING, pageable).toList();
                 break;
             case REJECTED:
-                list = repository.findByItemOwnerIdAndStatus(ownerId, BookingStatus.REJECTED, pageable).toList();
+                list = repository.findByOwnerIdAndStatus(ownerId, BookingStatus.REJECTED, pageable).toList();
                 break;
             case CURRENT:
-                list = repository.findByItemOwnerIdAndStartBeforeAndEndAfter(ownerId, now, now, pageable).toList();
+                list = repository.findByOwnerIdAndStartBeforeAndEndAfter(ownerId, now, now, pageable).toList();
                 break;
             default:
-                list = repository.findByItemOwnerId(ownerId, pageable).toList();
+                list = repository.findByOwnerId(ownerId, pageable).toList();
         }
 
         List<BookingDto> res = list.stream().map(BookingMapper::toBookingDto)
@@ -149,14 +283,90 @@ public class BookingServiceImpl implements BookingService {
         return res;
     }
 
+    @Override
+    public Slice<BookingDto> getSliceByBooker(long bookerId, String stateName, String after, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("size должно быть больше 0");
+        }
+
+        Pageable pageable = PageRequest.of(0, size, sortSeek);
+        userService.getUser(bookerId);
+        Slice<Booking> slice;
+
+        State state = getState(stateName);
+        BookingCursor cursor = BookingCursor.decode(after);
+        LocalDateTime start = cursor.getStart();
+        long id = cursor.getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        switch (state) {
+            case FUTURE:
+                slice = repository.seekByBookerAndStartAfter(bookerId, now, start, id, pageable);
+                break;
+            case PAST:
+                slice = repository.seekByBookerAndEndBefore(bookerId, now, start, id, pageable);
+                break;
+            case WAITING:
+                slice = repository.seekByBookerAndStatus(bookerId, BookingStatus.WAITING, start, id, pageable);
+                break;
+            case REJECTED:
+                slice = repository.seekByBookerAndStatus(bookerId, BookingStatus.REJECTED, start, id, pageable);
+                break;
+            case CURRENT:
+                slice = repository.seekByBookerCurrent(bookerId, now, start, id, pageable);
+                break;
+            default:
+                slice = repository.seekByBooker(bookerId, start, id, pageable);
+        }
+
+        return slice.map(BookingMapper::toBookingDto);
+    }
+
+    @Override
+    public Slice<BookingDto> getSliceByOwner(long ownerId, String stateName, String after, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("size должно быть больше 0");
+        }
+
+        Pageable pageable = PageRequest.of(0, size, sortSeek);
+        userService.getUser(ownerId);
+        Slice<Booking> slice;
+
+        State state = getState(stateName);
+        BookingCursor cursor = BookingCursor.decode(after);
+        LocalDateTime start = cursor.getStart();
+        long id = cursor.getId();
+        LocalDateTime now = LocalDateTime.now();
+
+        switch (state) {
+            case FUTURE:
+                slice = repository.seekByOwnerAndStartAfter(ownerId, now, start, id, pageable);
+                break;
+            case PAST:
+                slice = repository.seekByOwnerAndEndBefore(ownerId, now, start, id, pageable);
+                break;
+            case WAITING:
+                slice = repository.seekByOwnerAndStatus(ownerId, BookingStatus.WAITING, start, id, pageable);
+                break;
+            case REJECTED:
+                slice = repository.seekByOwnerAndStatus(ownerId, BookingStatus.REJECTED, start, id, pageable);
+                break;
+            case CURRENT:
+                slice = repository.seekByOwnerCurrent(ownerId, now, start, id, pageable);
+                break;
+            default:
+                slice = repository.seekByOwner(ownerId, start, id, pageable);
+        }
+
+        return slice.map(BookingMapper::toBookingDto);
+    }
 
     @Override
     @Transactional
     public BookingDto approve(long bookingId, long userId, boolean approved) {
         Booking booking = repository.findById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Booking #" + bookingId + " not found"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User #" + userId + " not found"));
+        userService.getUser(userId);
         if (booking.getItem().getOwner().getId() != userId) {
             throw new NotFoundException("User #" + userId + " can't edit booking #" + bookingId);
         }
@@ -164,8 +374,32 @@ public class BookingServiceImpl implements BookingService {
         if (booking.getStatus() == status) {
             throw new ValidationException("Already have status " + status);
         }
+        long itemId = booking.getItem().getId();
+        itemLocks.lockUntilCompletion(itemId);
+        if (status == BookingStatus.APPROVED) {
+            if (!availabilityIndex.isFree(itemId, booking.getStart(), booking.getEnd(), bookingId)) {
+                throw new ValidationException("Item #" + itemId + " is already booked for this period");
+            }
+            itemRepository.lockById(itemId);
+            if (repository.existsOverlapping(itemId, booking.getStart(), booking.getEnd(), BookingStatus.APPROVED,
+                    bookingId)) {
+                throw new ValidationException("Item #" + itemId + " is already booked for this period");
+            }
+        }
+        BookingStatus old = booking.getStatus();
+        if (repository.updateStatus(bookingId, old, status, booking.getVersion()) == 0) {
+            throw new ConflictException("Booking #" + bookingId + " was changed by another request");
+        }
         booking.setStatus(status);
-        booking = repository.save(booking);
+        booking.setVersion(booking.getVersion() + 1);
+        if (status == BookingStatus.APPROVED) {
+            long bookerId = booking.getBooker().getId();
+            TransactionCallbacks.afterCommit(() -> bookerItemFilter.add(bookerId, itemId));
+            availabilityIndex.add(itemId, BookingMapper.toBookingDtoItem(booking));
+        } else if (old == BookingStatus.APPROVED) {
+            availabilityIndex.remove(itemId, bookingId);
+        }
+        stateIndex.put(booking.getBooker().getId(), userId, BookingMapper.toBookingStateEntry(booking));
         return BookingMapper.toBookingDto(booking);
     }
 
@@ -173,8 +407,7 @@ public class BookingServiceImpl implements BookingService {
     public BookingDto getById(long id, long userId) {
         Booking booking = repository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Booking #" + id + " not found"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User #" + userId + " not found"));
+        userService.getUser(userId);
         if (booking.getBooker().getId() != userId && booking.getItem().getOwner().getId() != userId) {
             throw new NotFoundException("Not found booking #" + id + " for User #" + userId);
         }
@@ -182,6 +415,19 @@ public class BookingServiceImpl implements BookingService {
     }
 
 
+    private List<BookingDto> loadInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Booking> bookings = repository.findFullByIdIn(ids).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        return ids.stream()
+                .map(bookings::get)
+                .filter(Objects::nonNull)
+                .map(BookingMapper::toBookingDto)
+                .collect(Collectors.toList());
+    }
+
     private static State getState(String stateName) {
         State state;
         try {
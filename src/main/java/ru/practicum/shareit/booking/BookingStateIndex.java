@@ -0,0 +1,202 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingStateEntry;
+import ru.practicum.shareit.booking.dto.State;
+import ru.practicum.shareit.common.TransactionCallbacks;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+
+/**
+ * Per-booker and per-owner booking lists kept in memory, sorted by start and by end
+ * and split by status, so every {@link State} filter is a range lookup plus a short scan.
+ * Users are loaded from the database on first access and evicted by age and by the total number
+ * of bookings held, so one owner with a large fleet counts for as much as their history.
+ * A booking committed while its user is loading waits for the load and is applied on top of it.
+ * Only writes made by this JVM reach the index, so another instance's bookings and approvals show up
+ * only after the entry expires. The index is therefore off unless {@code shareit.booking-state.enabled}
+ * is set, which is meant for a single application instance.
+ */
+@Component
+public class BookingStateIndex {
+
+    private static final Comparator<BookingStateEntry> BY_START = Comparator
+            .comparing(BookingStateEntry::getStart)
+            .thenComparing(BookingStateEntry::getId)
+            .reversed();
+    private static final Comparator<BookingStateEntry> BY_END = Comparator
+            .comparing(BookingStateEntry::getEnd)
+            .thenComparing(BookingStateEntry::getId)
+            .reversed();
+
+    private final BookingRepository repository;
+    private final boolean enabled;
+    private final Cache<Long, UserBookings> bookers;
+    private final Cache<Long, UserBookings> owners;
+
+    public BookingStateIndex(BookingRepository repository,
+                             @Value("${shareit.booking-state.enabled:false}") boolean enabled,
+                             @Value("${shareit.booking-state.max-entries:1000000}") long maxEntries,
+                             @Value("${shareit.booking-state.expire-after-write:1m}") Duration expireAfterWrite) {
+        this.repository = repository;
+        this.enabled = enabled;
+        this.bookers = newCache(maxEntries, expireAfterWrite);
+        this.owners = newCache(maxEntries, expireAfterWrite);
+    }
+
+    private static Cache<Long, UserBookings> newCache(long maxEntries, Duration expireAfterWrite) {
+        long ttl = expireAfterWrite.toNanos();
+        return Caffeine.newBuilder()
+                .maximumWeight(maxEntries)
+                .weigher((Long userId, UserBookings bookings) -> Math.max(1, bookings.size()))
+                .expireAfter(new Expiry<Long, UserBookings>() {
+                    @Override
+                    public long expireAfterCreate(Long key, UserBookings value, long currentTime) {
+                        return ttl;
+                    }
+
+                    // local writes keep the load time, so an active user still resyncs with other instances
+                    @Override
+                    public long expireAfterUpdate(Long key, UserBookings value, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long key, UserBookings value, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<Long> findByBooker(long bookerId, State state, LocalDateTime now, int offset, int size) {
+        return bookers.get(bookerId, id -> new UserBookings(repository.findStateEntriesByBookerId(id)))
+                .find(state, now, offset, size);
+    }
+
+    public List<Long> findByOwner(long ownerId, State state, LocalDateTime now, int offset, int size) {
+        return owners.get(ownerId, id -> new UserBookings(repository.findStateEntriesByOwnerId(id)))
+                .find(state, now, offset, size);
+    }
+
+    public void put(long bookerId, long ownerId, BookingStateEntry entry) {
+        if (!enabled) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> {
+            put(bookers, bookerId, entry);
+            put(owners, ownerId, entry);
+        });
+    }
+
+    public void evictItem(long ownerId, Collection<Long> bookerIds) {
+        TransactionCallbacks.afterCommit(() -> {
+            owners.invalidate(ownerId);
+            bookers.invalidateAll(bookerIds);
+        });
+    }
+
+    private static void put(Cache<Long, UserBookings> cache, long userId, BookingStateEntry entry) {
+        cache.asMap().compute(userId, (id, bookings) -> {
+            if (bookings != null) {
+                bookings.put(entry);
+            }
+            return bookings;
+        });
+    }
+
+    private static class UserBookings {
+        private final NavigableSet<BookingStateEntry> byStart = new TreeSet<>(BY_START);
+        private final NavigableSet<BookingStateEntry> byEnd = new TreeSet<>(BY_END);
+        private final Map<BookingStatus, NavigableSet<BookingStateEntry>> byStatus = new EnumMap<>(BookingStatus.class);
+        private final Map<Long, BookingStateEntry> byId = new HashMap<>();
+
+        UserBookings(List<BookingStateEntry> entries) {
+            entries.forEach(this::put);
+        }
+
+        synchronized int size() {
+            return byId.size();
+        }
+
+        synchronized void put(BookingStateEntry entry) {
+            BookingStateEntry old = byId.put(entry.getId(), entry);
+            if (old != null) {
+                byStart.remove(old);
+                byEnd.remove(old);
+                byStatus.get(old.getStatus()).remove(old);
+            }
+            byStart.add(entry);
+            byEnd.add(entry);
+            byStatus.computeIfAbsent(entry.getStatus(), s -> new TreeSet<>(BY_START)).add(entry);
+        }
+
+        synchronized List<Long> find(State state, LocalDateTime now, int offset, int size) {
+            BookingStateEntry probe = new BookingStateEntry(Long.MAX_VALUE, now, now, null);
+            switch (state) {
+                case FUTURE:
+                    return page(byStart.headSet(probe, false), b -> true, offset, size);
+                case PAST:
+                    return page(byStart.tailSet(probe, true), b -> b.getEnd().isBefore(now), offset, size);
+                case CURRENT:
+                    List<BookingStateEntry> current = new ArrayList<>();
+                    for (BookingStateEntry b : byEnd.headSet(probe, false)) {
+                        if (b.getStart().isBefore(now)) {
+                            current.add(b);
+                        }
+                    }
+                    current.sort(BY_START);
+                    return page(current, b -> true, offset, size);
+                case WAITING:
+                case REJECTED:
+                    return page(byStatus.getOrDefault(BookingStatus.valueOf(state.name()), Collections.emptyNavigableSet()),
+                            b -> true, offset, size);
+                default:
+                    return page(byStart, b -> true, offset, size);
+            }
+        }
+
+        private static List<Long> page(Iterable<BookingStateEntry> entries, Predicate<BookingStateEntry> filter,
+                                       int offset, int size) {
+            List<Long> res = new ArrayList<>(size);
+            Iterator<BookingStateEntry> it = entries.iterator();
+            int skipped = 0;
+            while (it.hasNext() && res.size() < size) {
+                BookingStateEntry b = it.next();
+                if (!filter.test(b)) {
+                    continue;
+                }
+                if (skipped < offset) {
+                    skipped++;
+                } else {
+                    res.add(b.getId());
+                }
+            }
+            return res;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.TransactionCallbacks;
+import ru.practicum.shareit.exceptions.ConflictException;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-process locks keyed by item id.
+ * Booking writes for one item queue here in front of the item row lock, so at most one of them per JVM
+ * waits on the database for it, while writes for items on different stripes run in parallel.
+ * The row lock that approve takes with {@code SELECT ... FOR UPDATE} stays, because other instances
+ * don't see these locks.
+ * A lock is held until the surrounding transaction completes. The caller already holds a pooled
+ * connection while it waits, so the wait is bounded and a timeout fails the request with a conflict
+ * instead of piling up connections behind a busy item.
+ */
+@Component
+public class ItemLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutNanos;
+    private final Timer waitTimer;
+
+    public ItemLocks(@Value("${shareit.booking-lock.stripes:256}") int stripeCount,
+                     @Value("${shareit.booking-lock.timeout:2s}") Duration timeout, MeterRegistry registry) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Stripe count must be positive: " + stripeCount);
+        }
+        timeoutNanos = timeout.toNanos();
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        waitTimer = Timer.builder("shareit.booking.lock.wait")
+                .description("Time spent waiting for an item lock")
+                .register(registry);
+        Gauge.builder("shareit.booking.lock.queue", this, ItemLocks::queueLength)
+                .description("Threads waiting for item locks")
+                .register(registry);
+    }
+
+    public void lockUntilCompletion(long itemId) {
+        lock(stripeIndex(itemId), itemId);
+    }
+
+    /**
+     * Locks several items at once. Stripes are taken in ascending order, each once,
+     * so two writers sharing some of their items can't deadlock on each other.
+     */
+    public void lockAllUntilCompletion(Collection<Long> itemIds) {
+        TreeMap<Integer, Long> byStripe = new TreeMap<>();
+        itemIds.stream().sorted().forEach(id -> byStripe.putIfAbsent(stripeIndex(id), id));
+        byStripe.forEach(this::lock);
+    }
+
+    private void lock(int index, long itemId) {
+        if (!TransactionCallbacks.isActive()) {
+            throw new IllegalStateException("Item lock requires an active transaction");
+        }
+        ReentrantLock lock = stripes[index];
+        if (!lock.tryLock()) {
+            long started = System.nanoTime();
+            boolean locked;
+            try {
+                locked = lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                locked = false;
+            }
+            waitTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            if (!locked) {
+                throw new ConflictException("Item #" + itemId + " is busy, try again later");
+            }
+        } else {
+            waitTimer.record(0, TimeUnit.NANOSECONDS);
+        }
+        TransactionCallbacks.afterCompletion(lock::unlock);
+    }
+
+    public int queueLength() {
+        int res = 0;
+        for (ReentrantLock lock : stripes) {
+            res += lock.getQueueLength();
+        }
+        return res;
+    }
+
+    ReentrantLock stripe(long itemId) {
+        return stripes[stripeIndex(itemId)];
+    }
+
+    private int stripeIndex(long itemId) {
+        int hash = Long.hashCode(itemId * 0x9E3779B97F4A7C15L);
+        return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+    }
+}
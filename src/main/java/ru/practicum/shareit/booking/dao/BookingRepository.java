@@ -2,45 +2,192 @@ package ru.practicum.shareit.booking.dao;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
+import ru.practicum.shareit.booking.dto.BookingStateEntry;
 import ru.practicum.shareit.booking.model.Booking;
 
+import javax.persistence.QueryHint;
+
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Page<Booking> findByBooker_Id(Long bookerId, Pageable pageable);
+    String BY_BOOKER = "select b from Booking b where b.booker.id = :userId ";
+    String BY_OWNER = "select b from Booking b where b.ownerId = :userId ";
+    int EXPORT_FETCH_SIZE = 500;
+    String STATE_ENTRY = "select new ru.practicum.shareit.booking.dto.BookingStateEntry(b.id, b.start, b.end, b.status) " +
+            "from Booking b ";
+    String SLOT = "select new ru.practicum.shareit.booking.dto.BookingDtoItem(b.id, b.booker.id, b.start, b.end, " +
+            "b.item.id) from Booking b ";
+    String SEEK = " and (b.start < :start or (b.start = :start and b.id < :id))";
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_BOOKER)
+    Page<Booking> findByBookerId(@Param("userId") Long bookerId, Pageable pageable);
 
     boolean existsByBooker_Id(Long bookerId);
 
-    Page<Booking> findByItemOwnerId(Long bookerId, Pageable pageable);
-
-    Booking findFirstByItemIdAndStartBeforeAndStatus(Long itemId, LocalDateTime now, BookingStatus status, Sort sort);
-
-    Booking findFirstByItemIdAndStartAfterAndStatus(Long itemId, LocalDateTime now, BookingStatus status, Sort sort);
-
-    List<Booking> findByItemIdInAndStartBeforeAndStatus(List<Long> itemIds, LocalDateTime now, BookingStatus status, Sort sort);
-
-    List<Booking> findByItemIdInAndStartAfterAndStatus(List<Long> itemIds, LocalDateTime now, BookingStatus status, Sort sort);
-
-    Page<Booking> findByBookerIdAndEndBefore(Long bookerId, LocalDateTime now, Pageable pageable);
-
-    Page<Booking> findByBookerIdAndStartAfter(Long bookerId, LocalDateTime now, Pageable pageable);
-
-    Page<Booking> findByBookerIdAndStartBeforeAndEndAfter(Long bookerId, LocalDateTime dat1, LocalDateTime dat2, Pageable pageable);
-
-    Page<Booking> findByBookerIdAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
-
-    Page<Booking> findByItemOwnerIdAndEndBefore(Long bookerId, LocalDateTime now, Pageable pageable);
-
-    Page<Booking> findByItemOwnerIdAndStartAfter(Long bookerId, LocalDateTime now, Pageable pageable);
-
-    Page<Booking> findByItemOwnerIdAndStartBeforeAndEndAfter(Long bookerId, LocalDateTime dat1, LocalDateTime dat2, Pageable pageable);
-
-    Page<Booking> findByItemOwnerIdAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
-
-    boolean existsByBookerIdAndEndBefore(Long bookerId, LocalDateTime now);
-
+    @EntityGraph(Booking.GRAPH_FULL)
+    Page<Booking> findByOwnerId(Long bookerId, Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_BOOKER + "and b.end < :now")
+    Page<Booking> findByBookerIdAndEndBefore(@Param("userId") Long bookerId, @Param("now") LocalDateTime now,
+                                             Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_BOOKER + "and b.start > :now")
+    Page<Booking> findByBookerIdAndStartAfter(@Param("userId") Long bookerId, @Param("now") LocalDateTime now,
+                                              Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_BOOKER + "and b.start < :dat1 and b.end > :dat2")
+    Page<Booking> findByBookerIdAndStartBeforeAndEndAfter(@Param("userId") Long bookerId,
+                                                          @Param("dat1") LocalDateTime dat1,
+                                                          @Param("dat2") LocalDateTime dat2, Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_BOOKER + "and b.status = :status")
+    Page<Booking> findByBookerIdAndStatus(@Param("userId") Long bookerId, @Param("status") BookingStatus status,
+                                          Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    Page<Booking> findByOwnerIdAndEndBefore(Long bookerId, LocalDateTime now, Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    Page<Booking> findByOwnerIdAndStartAfter(Long bookerId, LocalDateTime now, Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    Page<Booking> findByOwnerIdAndStartBeforeAndEndAfter(Long bookerId, LocalDateTime dat1, LocalDateTime dat2, Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    Page<Booking> findByOwnerIdAndStatus(Long bookerId, BookingStatus status, Pageable pageable);
+
+    @Query("select count(b) > 0 from Booking b where b.booker.id = ?1 and b.item.id = ?2 and b.end < ?3 " +
+            "and b.status = ?4")
+    boolean existsByBookerIdAndItemIdAndEndBeforeAndStatus(Long bookerId, Long itemId, LocalDateTime now,
+                                                           BookingStatus status);
+
+    @Query(SLOT + "where b.status = ?1 and b.id > ?2 order by b.id")
+    List<BookingDtoItem> findSlotsByStatusAndIdAfter(BookingStatus status, long afterId, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingDtoItem(b.id, b.booker.id, b.start, b.end) " +
+            " from Booking b where b.item.id = ?1 and b.status = ?2")
+    List<BookingDtoItem> findSlotsByItemIdAndStatus(Long itemId, BookingStatus status);
+
+    @Query(SLOT + "where b.item.id in ?1 and b.status = ?3 and b.start = (select max(l.start) from Booking l " +
+            "where l.item.id = b.item.id and l.status = ?3 and l.start < ?2) order by b.id")
+    List<BookingDtoItem> findLastSlotPerItem(List<Long> itemIds, LocalDateTime now, BookingStatus status);
+
+    @Query(SLOT + "where b.item.id in ?1 and b.status = ?3 and b.start = (select min(n.start) from Booking n " +
+            "where n.item.id = b.item.id and n.status = ?3 and n.start > ?2) order by b.id")
+    List<BookingDtoItem> findNextSlotPerItem(List<Long> itemIds, LocalDateTime now, BookingStatus status);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_BOOKER + SEEK)
+    Slice<Booking> seekByBooker(@Param("userId") Long bookerId,
+                                @Param("start") LocalDateTime start, @Param("id") Long id,
+                                Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_BOOKER + " and b.end < :now" + SEEK)
+    Slice<Booking> seekByBookerAndEndBefore(@Param("userId") Long bookerId, @Param("now") LocalDateTime now,
+                                            @Param("start") LocalDateTime start, @Param("id") Long id,
+                                            Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_BOOKER + " and b.start > :now" + SEEK)
+    Slice<Booking> seekByBookerAndStartAfter(@Param("userId") Long bookerId, @Param("now") LocalDateTime now,
+                                             @Param("start") LocalDateTime start, @Param("id") Long id,
+                                             Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_BOOKER + " and b.start < :now and b.end > :now" + SEEK)
+    Slice<Booking> seekByBookerCurrent(@Param("userId") Long bookerId, @Param("now") LocalDateTime now,
+                                       @Param("start") LocalDateTime start, @Param("id") Long id,
+                                       Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_BOOKER + " and b.status = :status" + SEEK)
+    Slice<Booking> seekByBookerAndStatus(@Param("userId") Long bookerId, @Param("status") BookingStatus status,
+                                         @Param("start") LocalDateTime start, @Param("id") Long id,
+                                         Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_OWNER + SEEK)
+    Slice<Booking> seekByOwner(@Param("userId") Long ownerId,
+                               @Param("start") LocalDateTime start, @Param("id") Long id,
+                               Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_OWNER + " and b.end < :now" + SEEK)
+    Slice<Booking> seekByOwnerAndEndBefore(@Param("userId") Long ownerId, @Param("now") LocalDateTime now,
+                                           @Param("start") LocalDateTime start, @Param("id") Long id,
+                                           Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_OWNER + " and b.start > :now" + SEEK)
+    Slice<Booking> seekByOwnerAndStartAfter(@Param("userId") Long ownerId, @Param("now") LocalDateTime now,
+                                            @Param("start") LocalDateTime start, @Param("id") Long id,
+                                            Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_OWNER + " and b.start < :now and b.end > :now" + SEEK)
+    Slice<Booking> seekByOwnerCurrent(@Param("userId") Long ownerId, @Param("now") LocalDateTime now,
+                                      @Param("start") LocalDateTime start, @Param("id") Long id,
+                                      Pageable pageable);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query(BY_OWNER + " and b.status = :status" + SEEK)
+    Slice<Booking> seekByOwnerAndStatus(@Param("userId") Long ownerId, @Param("status") BookingStatus status,
+                                        @Param("start") LocalDateTime start, @Param("id") Long id,
+                                        Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1 " +
+            "where b.id = :id and b.status = :old and b.version = :version")
+    int updateStatus(@Param("id") long id, @Param("old") BookingStatus old, @Param("status") BookingStatus status,
+                     @Param("version") long version);
+
+    @Query("select count(b) > 0 from Booking b where b.item.id = ?1 and b.status = ?4 and b.id <> ?5 " +
+            "and b.start < ?3 and b.end > ?2")
+    boolean existsOverlapping(long itemId, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                              long excludeId);
+
+    @Query(STATE_ENTRY + "where b.booker.id = ?1")
+    List<BookingStateEntry> findStateEntriesByBookerId(long bookerId);
+
+    @Query(STATE_ENTRY + "where b.ownerId = ?1")
+    List<BookingStateEntry> findStateEntriesByOwnerId(long ownerId);
+
+    @Query("select distinct b.booker.id from Booking b where b.item.id = ?1")
+    List<Long> findBookerIdsByItemId(long itemId);
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from Booking b where b.item.id = ?1")
+    int deleteByItemId(long itemId);
+
+    @EntityGraph(Booking.GRAPH_FULL)
+    @Query("select b from Booking b where b.id in ?1")
+    List<Booking> findFullByIdIn(Collection<Long> ids);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "" + EXPORT_FETCH_SIZE))
+    @Query("select new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.start, b.end, b.status, " +
+            "i.id, i.name, i.description, i.available, i.requestId, i.commentCount, u.id, u.name, u.email) " +
+            "from Booking b join b.item i join b.booker u where b.ownerId = :userId " +
+            "order by b.start desc, b.id desc")
+    Stream<BookingDto> streamDtoByOwner(@Param("userId") Long ownerId);
 }
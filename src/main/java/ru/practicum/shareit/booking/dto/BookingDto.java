@@ -21,4 +21,12 @@ public class BookingDto {
     private ItemDto item;
     private UserDto booker;
     private BookingStatus status;
+
+    public BookingDto(long id, LocalDateTime start, LocalDateTime end, BookingStatus status,
+                      long itemId, String itemName, String itemDescription, Boolean itemAvailable,
+                      Long itemRequestId, long itemCommentCount, long bookerId, String bookerName,
+                      String bookerEmail) {
+        this(id, start, end, new ItemDto(itemId, itemName, itemDescription, itemAvailable, itemRequestId,
+                itemCommentCount), new UserDto(bookerId, bookerName, bookerEmail), status);
+    }
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,4 +17,13 @@ public class BookingDtoItem {
     private Long bookerId;
     private LocalDateTime start;
     private LocalDateTime end;
+    @JsonIgnore
+    private Long itemId;
+
+    public BookingDtoItem(Long id, Long bookerId, LocalDateTime start, LocalDateTime end) {
+        this.id = id;
+        this.bookerId = bookerId;
+        this.start = start;
+        this.end = end;
+    }
 }
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Bounded pools for asynchronous request handling, sized against the JDBC connection pool.
+ * GET handlers return CompletableFuture completed on the request pool, so a request waiting for the database
+ * holds a pool thread instead of a Tomcat worker. The request pool is also MVC's default async executor.
+ * Only {@code spring.datasource.hikari.maximum-pool-size} requests can run queries at once; the rest wait
+ * in Hikari for up to its connection timeout. The request pool therefore defaults to twice the connection count,
+ * enough to keep every connection busy while other threads serialize responses. Further requests wait in the
+ * executor queue and get 503 once it is full.
+ * Exports hold a connection for as long as they stream, so they run through {@link StreamExecutor} on their own
+ * pool, which defaults to half the connections and leaves the rest to regular requests.
+ */
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connections;
+    @Value("${shareit.async.pool-size:0}")
+    private int poolSize;
+    @Value("${shareit.async.queue-capacity:1000}")
+    private int queueCapacity;
+    @Value("${shareit.async.stream-pool-size:0}")
+    private int streamPoolSize;
+    @Value("${shareit.async.stream-queue-capacity:100}")
+    private int streamQueueCapacity;
+    @Value("${shareit.async.timeout:30000}")
+    private long timeout;
+
+    @Bean
+    public ThreadPoolTaskExecutor requestTaskExecutor() {
+        return executor(poolSize > 0 ? poolSize : 2 * connections, queueCapacity, "request-");
+    }
+
+    @Bean
+    public ThreadPoolTaskExecutor streamTaskExecutor() {
+        return executor(streamPoolSize > 0 ? streamPoolSize : Math.max(1, connections / 2),
+                streamQueueCapacity, "stream-");
+    }
+
+    @Bean
+    public RequestExecutor requestExecutor() {
+        return new RequestExecutor(requestTaskExecutor());
+    }
+
+    @Bean
+    public StreamExecutor streamExecutor() {
+        return new StreamExecutor(streamTaskExecutor());
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(requestTaskExecutor());
+        configurer.setDefaultTimeout(timeout);
+    }
+
+    private static ThreadPoolTaskExecutor executor(int poolSize, int queueCapacity, String threadNamePrefix) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix(threadNamePrefix);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.common;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Weak ETag handling for GET endpoints.
+ * The tag is computed from entity versions before the aggregate is loaded,
+ * so a matching If-None-Match answers 304 without building the body.
+ */
+public final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    public static <T> ResponseEntity<T> respond(String ifNoneMatch, String tag, Supplier<T> body) {
+        if (tag == null) {
+            return ResponseEntity.ok(body.get());
+        }
+        String etag = "W/\"" + tag + "\"";
+        if (matches(ifNoneMatch, tag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+        return ResponseEntity.ok().eTag(etag).body(body.get());
+    }
+
+    static boolean matches(String ifNoneMatch, String tag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*")) {
+                return true;
+            }
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("\"" + tag + "\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.shareit.common;
+
+/**
+ * Custom response headers shared by the controllers.
+ */
+public final class Headers {
+    /**
+     * Opaque token for the next page of a keyset-paginated list; absent on the last page.
+     */
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+
+    private Headers() {
+    }
+}
@@ -0,0 +1,63 @@
+package ru.practicum.shareit.common;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes one JSON document per line through a single buffered generator,
+ * or with {@link #array} the same values as one JSON array.
+ * {@link #write} is meant to be used from callbacks, so I/O errors are rethrown unchecked.
+ */
+public class NdjsonWriter implements Closeable {
+    public static final MediaType NDJSON = MediaType.APPLICATION_NDJSON;
+
+    private final ObjectWriter writer;
+    private final JsonGenerator generator;
+    private final boolean array;
+
+    public NdjsonWriter(ObjectMapper mapper, OutputStream out) throws IOException {
+        this(mapper, out, false);
+    }
+
+    private NdjsonWriter(ObjectMapper mapper, OutputStream out, boolean array) throws IOException {
+        writer = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        generator = mapper.getFactory().createGenerator(out);
+        this.array = array;
+        if (array) {
+            generator.writeStartArray();
+        } else {
+            generator.setRootValueSeparator(null);
+        }
+    }
+
+    public static NdjsonWriter array(ObjectMapper mapper, OutputStream out) throws IOException {
+        return new NdjsonWriter(mapper, out, true);
+    }
+
+    public void write(Object value) {
+        try {
+            writer.writeValue(generator, value);
+            if (!array) {
+                generator.writeRaw('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (array) {
+            generator.writeEndArray();
+        }
+        generator.close();
+    }
+}
@@ -0,0 +1,49 @@
+package ru.practicum.shareit.common;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * Runs independent read queries concurrently, each in its own read-only transaction.
+ * When disabled, queries run immediately in the caller's transaction.
+ * Callers fanning out should not hold a transaction themselves, otherwise each request keeps
+ * its own connection idle while the submitted queries check out theirs. They wrap the fan-out in
+ * {@link #execute}, which opens one read-only transaction only when queries run sequentially,
+ * so those queries still read one consistent snapshot.
+ */
+@RequiredArgsConstructor
+public class ParallelQueries {
+    private final Executor executor;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public <T> CompletableFuture<T> submit(Supplier<T> query) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(query.get());
+        }
+        return CompletableFuture.supplyAsync(() -> transactionTemplate.execute(status -> query.get()), executor);
+    }
+
+    public <T> T execute(Supplier<T> body) {
+        if (enabled) {
+            return body.get();
+        }
+        return transactionTemplate.execute(status -> body.get());
+    }
+
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.common;
+
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+@RequiredArgsConstructor
+public class RequestExecutor {
+    private final Executor executor;
+
+    public <T> CompletableFuture<T> supply(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor);
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.common;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Writes long response streams on the stream pool instead of MVC's default async executor.
+ * The handler returns the future, so the Tomcat worker is released while the body is written.
+ * An exception thrown before the first byte is flushed still reaches the error handler.
+ */
+@RequiredArgsConstructor
+public class StreamExecutor {
+    private final Executor executor;
+
+    public CompletableFuture<Void> stream(HttpServletResponse response, MediaType contentType,
+                                          StreamingResponseBody body) {
+        return CompletableFuture.runAsync(() -> {
+            response.setContentType(contentType.toString());
+            try {
+                body.writeTo(response.getOutputStream());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                // nothing sent yet: drop the stream's content type so the error handler can answer in JSON
+                if (!response.isCommitted()) {
+                    response.reset();
+                }
+                throw e;
+            }
+        }, executor);
+    }
+}
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.exceptions;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.RestControllerAdvice;
 import javax.persistence.EntityNotFoundException;
 import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.RejectedExecutionException;
 
 @Slf4j
 @RestControllerAdvice("ru.practicum.shareit")
@@ -21,6 +23,20 @@ public class ErrorHandler {
         return Map.of("DataIntegrityViolation in data", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handle(final ConflictException e) {
+        log.info("Статус {}: {}",HttpStatus.CONFLICT,e.getMessage(),e);
+        return Map.of("Conflict", e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public Map<String, String> handle(final ConcurrencyFailureException e) {
+        log.info("Статус {}: {}",HttpStatus.CONFLICT,e.getMessage(),e);
+        return Map.of("Conflict", "Объект изменён параллельным запросом, повторите попытку");
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public Map<String, String> handle(final ValidationException e) {
@@ -70,6 +86,13 @@ public class ErrorHandler {
         return Map.of("Forbidden", e.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public Map<String, String> handle(final RejectedExecutionException e) {
+        log.info("Статус {}: {}",HttpStatus.SERVICE_UNAVAILABLE,e.getMessage(),e);
+        return Map.of("Service unavailable", "Too many requests in progress");
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleException(final Exception e) {
@@ -3,10 +3,17 @@ package ru.practicum.shareit.item;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareit.common.ConditionalGet;
 import ru.practicum.shareit.common.Create;
+import ru.practicum.shareit.common.Headers;
+import ru.practicum.shareit.common.RequestExecutor;
 import ru.practicum.shareit.common.Update;
+import ru.practicum.shareit.item.dto.CommentCursor;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentDtoPost;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -14,20 +21,23 @@ import ru.practicum.shareit.item.dto.ItemDtoPost;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
 public class ItemController {
-
     @Autowired
     private ItemService service;
     @Autowired
     private UserService userService;
+    @Autowired
+    private RequestExecutor executor;
 
     @PostMapping
     public ItemDto addItem(@Validated({Create.class}) @RequestBody ItemDtoPost dto,
@@ -57,31 +67,36 @@ public class ItemController {
     }
 
     @GetMapping("/{id}")
-    public ItemDto getItemById(@PathVariable long id,
-                               @RequestHeader("X-Sharer-User-Id") Long userId) {
+    public CompletableFuture<ResponseEntity<ItemDto>> getItemById(@PathVariable long id,
+                                                                  @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                                  @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                          required = false) String ifNoneMatch) {
         log.info("GET /items/{}/", id);
-        return service.getItem(id, userId);
+        return executor.supply(() -> ConditionalGet.respond(ifNoneMatch, service.getItemTag(id, userId),
+                () -> service.getItem(id, userId)));
     }
 
     @GetMapping
-    public List<ItemDto> getItemsByOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
-                                         @RequestParam(defaultValue = "0")
-                                         @Min(0) int from,
-                                         @RequestParam(defaultValue = "10")
-                                         @Min(0) int size) {
+    public CompletableFuture<List<ItemDto>> getItemsByOwner(@RequestHeader("X-Sharer-User-Id") Long userId,
+                                                            @RequestParam(defaultValue = "0")
+                                                            @Min(0) int from,
+                                                            @RequestParam(defaultValue = "10")
+                                                            @Min(0) int size) {
         log.info("GET /items/ userId={}", userId);
-        UserDto user = userService.getUser(userId);
-        return service.getItemsByOwner(userId, from, size);
+        return executor.supply(() -> {
+            UserDto user = userService.getUser(userId);
+            return service.getItemsByOwner(userId, from, size);
+        });
     }
 
     @GetMapping("/search")
-    public List<ItemDto> search(@RequestParam String text,
-                                @RequestParam(defaultValue = "0")
-                                @Min(0) int from,
-                                @RequestParam(defaultValue = "10")
-                                @Min(0) int size) {
+    public CompletableFuture<List<ItemDto>> search(@RequestParam String text,
+                                                   @RequestParam(defaultValue = "0")
+                                                   @Min(0) int from,
+                                                   @RequestParam(defaultValue = "10")
+                                                   @Min(0) int size) {
         log.info("GET /items/search");
-        return service.search(text, from, size);
+        return executor.supply(() -> service.search(text, from, size));
     }
 
     @PostMapping("/{itemId}/comment")
@@ -91,4 +106,23 @@ public class ItemController {
         log.info("POST /items/{}/comment {}", itemId, text);
         return service.createComment(text, itemId, userId);
     }
+
+    @GetMapping("/{itemId}/comments")
+    public CompletableFuture<List<CommentDto>> getComments(@PathVariable long itemId,
+                                                           @RequestHeader("X-Sharer-User-Id") Long userId,
+                                                           @RequestParam(required = false) String after,
+                                                           @RequestParam(defaultValue = "10")
+                                                           @Min(1) int size,
+                                                           HttpServletResponse response) {
+        log.info("GET /items/{}/comments after={}", itemId, after);
+        return executor.supply(() -> {
+            userService.getUser(userId);
+            Slice<CommentDto> slice = service.getComments(itemId, after, size);
+            List<CommentDto> list = slice.getContent();
+            if (slice.hasNext()) {
+                response.setHeader(Headers.NEXT_CURSOR, CommentCursor.of(list.get(list.size() - 1)).encode());
+            }
+            return list;
+        });
+    }
 }
@@ -18,7 +18,8 @@ public class ItemMapper {
                 item.getDescription(),
                 item.isAvailable(),
                 null, null, List.of(),
-                item.getRequestId()
+                item.getRequestId(),
+                item.getCommentCount()
         );
     }
 
@@ -0,0 +1,365 @@
+package ru.practicum.shareit.item;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.TransactionCallbacks;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemIndexDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over item names and descriptions.
+ * Terms map to item ids, and padded term trigrams map to terms, so a query word is matched
+ * as a substring of indexed words, or by trigram similarity when it contains a typo,
+ * without scanning the items. A two-letter word only matches as a prefix and a single letter
+ * only as a whole word, so short words never scan the vocabulary.
+ * Every query word has to match, in any order; the query isn't matched as one phrase.
+ * Matches are ranked with BM25 over both fields, the name weighted higher, and scaled down
+ * for partial and fuzzy matches; only the requested top results are kept in a bounded heap.
+ * Entries keep the item version, so a rebuild batch read before a committed update or delete
+ * never overwrites it.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ItemSearchIndex {
+    private static final int LOAD_BATCH = 10_000;
+    private static final double NAME_WEIGHT = 2;
+    private static final double DESCRIPTION_WEIGHT = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double PREFIX_MATCH = 0.8;
+    private static final double SUBSTRING_MATCH = 0.6;
+    private static final double FUZZY_MATCH = 0.5;
+    private static final double MIN_SIMILARITY = 0.3;
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final Comparator<Map.Entry<Long, Double>> WORST_FIRST = Map.Entry.<Long, Double>comparingByValue()
+            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder()));
+
+    private final ItemRepository repository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final Map<String, Map<Long, Posting>> postings = new HashMap<>();
+    private final Map<String, Set<String>> trigrams = new HashMap<>();
+    private Set<Long> removedDuringRebuild;
+    private long nameLength;
+    private long descriptionLength;
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            removedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        long lastId = 0;
+        int count = 0;
+        List<ItemIndexDto> batch;
+        try {
+            do {
+                batch = repository.findForIndex(lastId, PageRequest.ofSize(LOAD_BATCH));
+                for (ItemIndexDto item : batch) {
+                    put(item.getId(), item.getName(), item.getDescription(), item.isAvailable(), item.getVersion());
+                    lastId = item.getId();
+                }
+                count += batch.size();
+            } while (batch.size() == LOAD_BATCH);
+        } finally {
+            lock.writeLock().lock();
+            try {
+                removedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        ready = true;
+        log.info("Item search index built: {} items", count);
+    }
+
+    public void index(Item item) {
+        TransactionCallbacks.afterCommit(() ->
+                put(item.getId(), item.getName(), item.getDescription(), item.isAvailable(), item.getVersion()));
+    }
+
+    public void remove(long itemId) {
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                unindex(itemId);
+                if (removedDuringRebuild != null) {
+                    removedDuringRebuild.add(itemId);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public List<Long> search(String text, int offset, int limit) {
+        Set<String> words = new LinkedHashSet<>(tokenize(text));
+        if (words.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Map<Long, Double> scores = null;
+        lock.readLock().lock();
+        try {
+            List<Map<String, Double>> matches = new ArrayList<>();
+            for (String word : words) {
+                matches.add(matchTerms(word));
+            }
+            matches.sort(Comparator.comparingLong(this::postingCount));
+            for (Map<String, Double> match : matches) {
+                scores = score(match, scores);
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return top(scores, offset, limit);
+    }
+
+    private static List<Long> top(Map<Long, Double> scores, int offset, int limit) {
+        int k = (int) Math.min((long) offset + limit, scores.size());
+        if (k <= offset) {
+            return List.of();
+        }
+        PriorityQueue<Map.Entry<Long, Double>> heap = new PriorityQueue<>(k, WORST_FIRST);
+        for (Map.Entry<Long, Double> e : scores.entrySet()) {
+            if (heap.size() < k) {
+                heap.add(e);
+            } else if (WORST_FIRST.compare(e, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(e);
+            }
+        }
+        List<Long> res = new ArrayList<>(k);
+        while (!heap.isEmpty()) {
+            res.add(heap.poll().getKey());
+        }
+        Collections.reverse(res);
+        return res.subList(offset, k);
+    }
+
+    private long postingCount(Map<String, Double> match) {
+        long res = 0;
+        for (String term : match.keySet()) {
+            res += postings.get(term).size();
+        }
+        return res;
+    }
+
+    private Map<Long, Double> score(Map<String, Double> match, Map<Long, Double> previous) {
+        Map<Long, Double> res = new HashMap<>();
+        double avgName = Math.max(1, (double) nameLength / Math.max(1, docs.size()));
+        double avgDescription = Math.max(1, (double) descriptionLength / Math.max(1, docs.size()));
+        for (Map.Entry<String, Double> term : match.entrySet()) {
+            Map<Long, Posting> ids = postings.get(term.getKey());
+            double idf = Math.log(1 + (docs.size() - ids.size() + 0.5) / (ids.size() + 0.5));
+            for (Map.Entry<Long, Posting> e : ids.entrySet()) {
+                Posting posting = e.getValue();
+                if (!posting.doc.available || previous != null && !previous.containsKey(e.getKey())) {
+                    continue;
+                }
+                double tf = NAME_WEIGHT * posting.nameTf / (1 - B + B * posting.doc.nameLength / avgName)
+                        + DESCRIPTION_WEIGHT * posting.descriptionTf
+                        / (1 - B + B * posting.doc.descriptionLength / avgDescription);
+                res.merge(e.getKey(), term.getValue() * idf * tf * (K1 + 1) / (tf + K1), Math::max);
+            }
+        }
+        if (previous != null) {
+            res.replaceAll((id, score) -> score + previous.get(id));
+        }
+        return res;
+    }
+
+    private Map<String, Double> matchTerms(String word) {
+        Map<String, Double> res = new HashMap<>();
+        for (String term : substringTerms(word)) {
+            res.put(term, term.equals(word) ? 1 : term.startsWith(word) ? PREFIX_MATCH : SUBSTRING_MATCH);
+        }
+        if (word.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> grams = trigramsOf(pad(word));
+            String first = pad(word).substring(0, 3);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                if (gram.equals(first)) {
+                    // shared by every term starting with the same letter, counted below for real candidates only
+                    continue;
+                }
+                for (String term : trigrams.getOrDefault(gram, Set.of())) {
+                    shared.merge(term, 1, Integer::sum);
+                }
+            }
+            for (Map.Entry<String, Integer> e : shared.entrySet()) {
+                int common = e.getValue() + (e.getKey().charAt(0) == word.charAt(0) ? 1 : 0);
+                double similarity = (double) common / (grams.size() + pad(e.getKey()).length() - 2 - common);
+                if (similarity >= MIN_SIMILARITY) {
+                    res.putIfAbsent(e.getKey(), FUZZY_MATCH * similarity);
+                }
+            }
+        }
+        return res;
+    }
+
+    private Set<String> substringTerms(String word) {
+        if (word.length() == 1) {
+            return postings.containsKey(word) ? Set.of(word) : Set.of();
+        }
+        if (word.length() == 2) {
+            // the padded trigram " ab" belongs exactly to the terms starting with "ab"
+            return new HashSet<>(trigrams.getOrDefault(" " + word, Set.of()));
+        }
+        Set<String> candidates = null;
+        for (String gram : trigramsOf(word)) {
+            Set<String> terms = trigrams.getOrDefault(gram, Set.of());
+            if (candidates == null) {
+                candidates = new HashSet<>(terms);
+            } else {
+                candidates.retainAll(terms);
+            }
+            if (candidates.isEmpty()) {
+                return candidates;
+            }
+        }
+        candidates.removeIf(term -> !term.contains(word));
+        return candidates;
+    }
+
+    private void put(long id, String name, String description, boolean available, long version) {
+        List<String> nameTerms = tokenize(name);
+        List<String> descriptionTerms = tokenize(description);
+        Doc doc = new Doc(nameTerms, descriptionTerms, available, version);
+        lock.writeLock().lock();
+        try {
+            Doc old = docs.get(id);
+            if (old != null && old.version >= version
+                    || removedDuringRebuild != null && removedDuringRebuild.contains(id)) {
+                return;
+            }
+            unindex(id);
+            docs.put(id, doc);
+            nameLength += doc.nameLength;
+            descriptionLength += doc.descriptionLength;
+            for (String term : doc.terms) {
+                postings.computeIfAbsent(term, t -> {
+                    for (String gram : trigramsOf(pad(t))) {
+                        trigrams.computeIfAbsent(gram, g -> new HashSet<>()).add(t);
+                    }
+                    return new HashMap<>();
+                }).put(id, new Posting(doc, Collections.frequency(nameTerms, term),
+                        Collections.frequency(descriptionTerms, term)));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(long id) {
+        Doc old = docs.remove(id);
+        if (old == null) {
+            return;
+        }
+        nameLength -= old.nameLength;
+        descriptionLength -= old.descriptionLength;
+        for (String term : old.terms) {
+            Map<Long, Posting> ids = postings.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+                for (String gram : trigramsOf(pad(term))) {
+                    Set<String> terms = trigrams.get(gram);
+                    terms.remove(term);
+                    if (terms.isEmpty()) {
+                        trigrams.remove(gram);
+                    }
+                }
+            }
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> res = new ArrayList<>();
+        if (text == null) {
+            return res;
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                c = Character.toLowerCase(c);
+                sb.append(c == 'ё' ? 'е' : c);
+            } else if (sb.length() > 0) {
+                res.add(sb.toString());
+                sb.setLength(0);
+            }
+        }
+        return res;
+    }
+
+    private static String pad(String term) {
+        return "  " + term + " ";
+    }
+
+    private static Set<String> trigramsOf(String term) {
+        Set<String> res = new HashSet<>();
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            res.add(term.substring(i, i + 3));
+        }
+        return res;
+    }
+
+    private static class Doc {
+        private final Set<String> terms;
+        private final int nameLength;
+        private final int descriptionLength;
+        private final boolean available;
+        private final long version;
+
+        Doc(List<String> name, List<String> description, boolean available, long version) {
+            this.terms = new HashSet<>(name);
+            this.terms.addAll(description);
+            this.nameLength = name.size();
+            this.descriptionLength = description.size();
+            this.available = available;
+            this.version = version;
+        }
+    }
+
+    private static class Posting {
+        private final Doc doc;
+        private final int nameTf;
+        private final int descriptionTf;
+
+        Posting(Doc doc, int nameTf, int descriptionTf) {
+            this.doc = doc;
+            this.nameTf = nameTf;
+            this.descriptionTf = descriptionTf;
+        }
+    }
+}
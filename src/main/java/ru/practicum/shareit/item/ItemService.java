@@ -1,5 +1,6 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Slice;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentDtoPost;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -12,6 +13,8 @@ public interface ItemService {
 
     ItemDto getItem(long id, Long userId);
 
+    String getItemTag(long id, Long userId);
+
     List<ItemDto> getItemsByOwner(long ownerId, int from, int size);
 
     List<ItemDto> search(String searchText, int from, int size);
@@ -22,4 +25,6 @@ public interface ItemService {
 
     CommentDto createComment(CommentDtoPost text, Long itemId, Long userId);
 
+    Slice<CommentDto> getComments(long itemId, String after, int size);
+
 }
@@ -3,37 +3,45 @@ package ru.practicum.shareit.item;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookerItemFilter;
+import ru.practicum.shareit.booking.BookingAvailabilityIndex;
+import ru.practicum.shareit.booking.BookingStateIndex;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.dao.BookingRepository;
 import ru.practicum.shareit.booking.dto.BookingDtoItem;
-import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.common.ParallelQueries;
 import ru.practicum.shareit.exceptions.BadRequestException;
 import ru.practicum.shareit.exceptions.ForbiddenException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.item.dao.CommentRepository;
 import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.CommentCursor;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentDtoPost;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoPost;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.request.dao.ItemRequestRepository;
+import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static org.springframework.data.domain.Sort.Direction.DESC;
-
 @Service
 @AllArgsConstructor
 @RequiredArgsConstructor
@@ -43,15 +51,29 @@ public class ItemServiceImpl implements ItemService {
     @Autowired
     private UserRepository userRepository;
     @Autowired
+    private UserService userService;
+    @Autowired
     private ItemRepository repository;
     @Autowired
     private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRequestRepository requestRepository;
 
     @Autowired
     private CommentRepository commentRepository;
+    @Autowired
+    private BookingAvailabilityIndex availabilityIndex;
+    @Autowired
+    private ItemSearchIndex searchIndex;
+    @Autowired
+    private BookingStateIndex stateIndex;
+    @Autowired
+    private ParallelQueries parallelQueries;
+    @Autowired
+    private BookerItemFilter bookerItemFilter;
 
-    private final Sort sortDesc = Sort.by("start").descending();
-    private final Sort sortAsc = Sort.by("start").ascending();
+    @Value("${shareit.item.comment-preview:10}")
+    private int commentPreview;
 
     @Override
     @Transactional
@@ -60,6 +82,8 @@ public class ItemServiceImpl implements ItemService {
         item.setOwner(userRepository.findById(ownerId)
                 .orElseThrow(() -> new NotFoundException("User #" + ownerId + " not found")));
         repository.save(item);
+        searchIndex.index(item);
+        touchRequest(item.getRequestId());
         return ItemMapper.toItemDto(item);
     }
 
@@ -67,54 +91,72 @@ public class ItemServiceImpl implements ItemService {
     public ItemDto getItem(long id, Long userId) {
         Item item = repository.findById(id)
                 .orElseThrow(() -> new NotFoundException("Item #" + id + " not found"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User #" + userId + " not found"));
+        userService.getUser(userId);
         ItemDto res = ItemMapper.toItemDto(item);
         if (item.getOwner().getId() == userId) {
             setBookings(res);
         }
-        res.setComments(getCommentsForItem(id));
+        res.setComments(commentRepository.seekDtoByItemId(id, CommentCursor.FIRST.getCreated(),
+                CommentCursor.FIRST.getId(), PageRequest.ofSize(commentPreview)).getContent());
         return res;
     }
 
-    private BookingDtoItem getFirstBookingDtoItem(List<Booking> list) {
-        return (list != null && list.size() > 0) ? BookingMapper.toBookingDtoItem(list.get(0)) : null;
+    @Override
+    public String getItemTag(long id, Long userId) {
+        userService.getUser(userId);
+        return repository.findVersionById(id)
+                .map(v -> {
+                    String tag = v.getId() + "-" + v.getVersion() + "-" + v.getComments();
+                    if (v.getOwnerId() == userId) {
+                        LocalDateTime now = LocalDateTime.now();
+                        BookingDtoItem last = availabilityIndex.lastBefore(id, now);
+                        BookingDtoItem next = availabilityIndex.nextAfter(id, now);
+                        tag += "-" + (last == null ? 0 : last.getId()) + "-" + (next == null ? 0 : next.getId());
+                    }
+                    return tag;
+                })
+                .orElse(null);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<ItemDto> getItemsByOwner(long ownerId, int from, int size) {
         if (from < 0 || size <= 0) {
             throw new BadRequestException("from должно быть положительным, size больше 0");
         }
 
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<ItemDto> res = repository.findByOwnerId(ownerId, pageable).toList().stream()
-                .map(ItemMapper::toItemDto)
-                .collect(Collectors.toList());
-        List<Long> itemIds = res.stream().map(ItemDto::getId).collect(Collectors.toList());
-        LocalDateTime now = LocalDateTime.now();
+        return parallelQueries.execute(() -> {
+            Pageable pageable = PageRequest.of(from / size, size);
+            List<ItemDto> res = repository.findDtoByOwnerId(ownerId, pageable).toList();
+            List<Long> itemIds = res.stream().map(ItemDto::getId).collect(Collectors.toList());
+            LocalDateTime now = LocalDateTime.now();
 
-        Map<Long, List<CommentDto>> comments = commentRepository.findByItem_IdIn(itemIds, Sort.by(DESC, "created"))
-                .stream()
-                .map(CommentMapper::toCommentDto)
-                .collect(Collectors.groupingBy(c -> c.getItemId(), Collectors.toList()));
-
-        Map<Long, List<Booking>> lastBookings = bookingRepository
-                .findByItemIdInAndStartBeforeAndStatus(itemIds, now, BookingStatus.APPROVED, sortDesc)
-                .stream()
-                .collect(Collectors.groupingBy(c -> c.getItem().getId(), Collectors.toList()));
-
-        Map<Long, List<Booking>> nextBookings = bookingRepository
-                .findByItemIdInAndStartAfterAndStatus(itemIds, now, BookingStatus.APPROVED, sortAsc)
-                .stream()
-                .collect(Collectors.groupingBy(c -> c.getItem().getId(), Collectors.toList()));
-
-        for (ItemDto item : res) {
-            item.setComments(comments.getOrDefault(item.getId(), List.of()));
-            item.setLastBooking(getFirstBookingDtoItem(lastBookings.get(item.getId())));
-            item.setNextBooking(getFirstBookingDtoItem(nextBookings.get(item.getId())));
-        }
-        return res;
+            CompletableFuture<Map<Long, List<CommentDto>>> commentsQuery = parallelQueries.submit(() ->
+                    getLatestComments(itemIds)
+                            .stream()
+                            .collect(Collectors.groupingBy(c -> c.getItemId(), Collectors.toList())));
+
+            CompletableFuture<Map<Long, BookingDtoItem>> lastQuery = parallelQueries.submit(() ->
+                    bookingRepository.findLastSlotPerItem(itemIds, now, BookingStatus.APPROVED)
+                            .stream()
+                            .collect(Collectors.toMap(BookingDtoItem::getItemId, Function.identity(), (a, b) -> a)));
+
+            CompletableFuture<Map<Long, BookingDtoItem>> nextQuery = parallelQueries.submit(() ->
+                    bookingRepository.findNextSlotPerItem(itemIds, now, BookingStatus.APPROVED)
+                            .stream()
+                            .collect(Collectors.toMap(BookingDtoItem::getItemId, Function.identity(), (a, b) -> a)));
+
+            Map<Long, List<CommentDto>> comments = ParallelQueries.join(commentsQuery);
+            Map<Long, BookingDtoItem> lastBookings = ParallelQueries.join(lastQuery);
+            Map<Long, BookingDtoItem> nextBookings = ParallelQueries.join(nextQuery);
+
+            for (ItemDto item : res) {
+                item.setComments(comments.getOrDefault(item.getId(), List.of()));
+                item.setLastBooking(lastBookings.get(item.getId()));
+                item.setNextBooking(nextBookings.get(item.getId()));
+            }
+            return res;
+        });
     }
 
     @Override
@@ -126,9 +168,19 @@ public class ItemServiceImpl implements ItemService {
         if (searchText.isBlank()) {
             return List.of();
         }
-        Pageable pageable = PageRequest.of(from / size, size);
-        List<ItemDto> res = repository.search(searchText, pageable).toList()
-                .stream()
+        if (!searchIndex.isReady()) {
+            Pageable pageable = PageRequest.of(from / size, size);
+            return repository.search(searchText, pageable).toList()
+                    .stream()
+                    .map(ItemMapper::toItemDto)
+                    .collect(Collectors.toList());
+        }
+        List<Long> ids = searchIndex.search(searchText, from / size * size, size);
+        Map<Long, Item> items = repository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        List<ItemDto> res = ids.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
                 .map(ItemMapper::toItemDto)
                 .collect(Collectors.toList());
         return res;
@@ -139,8 +191,7 @@ public class ItemServiceImpl implements ItemService {
     public ItemDto updateItem(ItemDtoPost dto, long itemId, long ownerId) {
         Item item = repository.findById(itemId)
                 .orElseThrow(() -> new NotFoundException("Item #" + itemId + " not found"));
-        User user = userRepository.findById(ownerId)
-                .orElseThrow(() -> new NotFoundException("User #" + ownerId + " not found"));
+        userService.getUser(ownerId);
         if (item.getOwner().getId() != ownerId) {
             throw new ForbiddenException("User #" + ownerId + " can't edit item #" + itemId);
         }
@@ -153,8 +204,9 @@ public class ItemServiceImpl implements ItemService {
         if (dto.getAvailable() != null) {
             item.setAvailable(dto.getAvailable());
         }
-        item.setOwner(user);
         repository.save(item);
+        searchIndex.index(item);
+        touchRequest(item.getRequestId());
         return ItemMapper.toItemDto(item);
     }
 
@@ -165,16 +217,31 @@ public class ItemServiceImpl implements ItemService {
         if (old.getOwner().getId() != ownerId) {
             throw new ForbiddenException("User #" + ownerId + " can't delete item #" + id);
         }
+        List<Long> bookerIds = bookingRepository.findBookerIdsByItemId(id);
+        bookingRepository.deleteByItemId(id);
         repository.deleteById(id);
+        availabilityIndex.evict(id);
+        stateIndex.evictItem(ownerId, bookerIds);
+        searchIndex.remove(id);
+        touchRequest(old.getRequestId());
         return ItemMapper.toItemDto(old);
     }
 
+    // request ETags cover the items answering the request, so any change to them bumps the request
+    private void touchRequest(Long requestId) {
+        if (requestId != null) {
+            requestRepository.incrementItemsVersion(requestId);
+        }
+    }
+
     @Override
     @Transactional
     public CommentDto createComment(CommentDtoPost dto, Long itemId, Long userId) {
         Item item = repository.findById(itemId).orElseThrow();
         User user = userRepository.findById(userId).orElseThrow();
-        if (!bookingRepository.existsByBookerIdAndEndBefore(userId, LocalDateTime.now())) {
+        if (!bookerItemFilter.mightContain(userId, itemId)
+                || !bookingRepository.existsByBookerIdAndItemIdAndEndBeforeAndStatus(userId, itemId,
+                LocalDateTime.now(), BookingStatus.APPROVED)) {
             throw new BadRequestException("No Bookings");
         }
         Comment comment = Comment.builder()
@@ -184,22 +251,37 @@ public class ItemServiceImpl implements ItemService {
                 .created(LocalDateTime.now())
                 .build();
         comment = commentRepository.save(comment);
+        repository.incrementCommentCount(itemId);
         return CommentMapper.toCommentDto(comment);
     }
 
-    private List<CommentDto> getCommentsForItem(Long item_id) {
-        List<CommentDto> res = commentRepository.findByItemId(item_id).stream()
-                .map(CommentMapper::toCommentDto)
+    @Override
+    public Slice<CommentDto> getComments(long itemId, String after, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("size должно быть больше 0");
+        }
+        if (!repository.existsById(itemId)) {
+            throw new NotFoundException("Item #" + itemId + " not found");
+        }
+        CommentCursor cursor = CommentCursor.decode(after);
+        return commentRepository.seekDtoByItemId(itemId, cursor.getCreated(), cursor.getId(),
+                PageRequest.ofSize(size));
+    }
+
+    private List<CommentDto> getLatestComments(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return List.of();
+        }
+        List<Long> ids = commentRepository.findLatestIdsByItemIdIn(itemIds, commentPreview).stream()
+                .map(Number::longValue)
                 .collect(Collectors.toList());
-        return res;
+        return ids.isEmpty() ? List.of() : commentRepository.findDtoByIdIn(ids);
     }
 
     private ItemDto setBookings(ItemDto item) {
         LocalDateTime now = LocalDateTime.now();
-        Booking last = bookingRepository.findFirstByItemIdAndStartBeforeAndStatus(item.getId(), now, BookingStatus.APPROVED, sortDesc);
-        Booking next = bookingRepository.findFirstByItemIdAndStartAfterAndStatus(item.getId(), now, BookingStatus.APPROVED, sortAsc);
-        item.setLastBooking(BookingMapper.toBookingDtoItem(last));
-        item.setNextBooking(BookingMapper.toBookingDtoItem(next));
+        item.setLastBooking(availabilityIndex.lastBefore(item.getId(), now));
+        item.setNextBooking(availabilityIndex.nextAfter(item.getId(), now));
         return item;
     }
 }
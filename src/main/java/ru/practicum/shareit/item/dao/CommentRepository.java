@@ -1,13 +1,31 @@
 package ru.practicum.shareit.item.dao;
 
-import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByItemId(Long itemId);
+    String DTO = "select new ru.practicum.shareit.item.dto.CommentDto(c.id, c.text, c.item.id, c.author.name, " +
+            "c.created) from comments c ";
 
-    List<Comment> findByItem_IdIn(List<Long> itemIds, Sort sort);
+    @Query(DTO + "where c.item.id = :itemId and (c.created < :created or (c.created = :created and c.id < :id)) " +
+            "order by c.created desc, c.id desc")
+    Slice<CommentDto> seekDtoByItemId(@Param("itemId") long itemId,
+                                      @Param("created") LocalDateTime created, @Param("id") long id,
+                                      Pageable pageable);
+
+    @Query(value = "select ID from (select ID, row_number() over " +
+            "(partition by ITEM_ID order by CREATED desc, ID desc) RN from COMMENTS where ITEM_ID in ?1) t " +
+            "where RN <= ?2", nativeQuery = true)
+    List<Number> findLatestIdsByItemIdIn(List<Long> itemIds, int limit);
+
+    @Query(DTO + "where c.id in ?1 order by c.created desc, c.id desc")
+    List<CommentDto> findDtoByIdIn(List<Long> ids);
 }
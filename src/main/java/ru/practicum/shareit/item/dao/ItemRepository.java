@@ -3,12 +3,20 @@ package ru.practicum.shareit.item.dao;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoForRequest;
+import ru.practicum.shareit.item.dto.ItemIndexDto;
+import ru.practicum.shareit.item.dto.ItemVersionDto;
 import ru.practicum.shareit.item.model.Item;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository extends JpaRepository<Item, Long> {
+    String FOR_REQUEST = "select new ru.practicum.shareit.item.dto.ItemDtoForRequest(i.id, i.name, i.owner.id, " +
+            "i.description, i.available, i.requestId) from Item i ";
     @Query(" select i from Item i " +
             " where (upper(i.name) like upper(concat('%',?1,'%')) or " +
             " upper(i.description) like upper(concat('%',?1,'%'))) and " +
@@ -20,4 +28,30 @@ public interface ItemRepository extends JpaRepository<Item, Long> {
     List<Item> findByRequestId(Long requestId);
 
     List<Item> findAllByRequestIdIn(List<Long> requestIds);
+
+    @Query(value = "select new ru.practicum.shareit.item.dto.ItemDto(i.id, i.name, i.description, i.available, " +
+            "i.requestId, i.commentCount) from Item i where i.owner.id = ?1 order by i.id",
+            countQuery = "select count(i) from Item i where i.owner.id = ?1")
+    Page<ItemDto> findDtoByOwnerId(long ownerId, Pageable pageable);
+
+    @Query(FOR_REQUEST + "where i.requestId = ?1")
+    List<ItemDtoForRequest> findDtoByRequestId(Long requestId);
+
+    @Query(FOR_REQUEST + "where i.requestId in ?1")
+    List<ItemDtoForRequest> findDtoByRequestIdIn(List<Long> requestIds);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemVersionDto(i.id, i.owner.id, i.version, " +
+            "i.commentCount) from Item i where i.id = ?1")
+    Optional<ItemVersionDto> findVersionById(long id);
+
+    @Modifying
+    @Query("update Item i set i.commentCount = i.commentCount + 1 where i.id = ?1")
+    int incrementCommentCount(long id);
+
+    @Query(value = "select ID from ITEMS where ID = ?1 for update", nativeQuery = true)
+    Long lockById(long id);
+
+    @Query("select new ru.practicum.shareit.item.dto.ItemIndexDto(i.id, i.name, i.description, i.available, " +
+            "i.version) from Item i where i.id > ?1 order by i.id")
+    List<ItemIndexDto> findForIndex(long afterId, Pageable pageable);
 }
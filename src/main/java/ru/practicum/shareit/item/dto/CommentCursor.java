@@ -0,0 +1,40 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Value;
+import ru.practicum.shareit.exceptions.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+@Value
+public class CommentCursor {
+    public static final CommentCursor FIRST = new CommentCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private LocalDateTime created;
+    private long id;
+
+    public static CommentCursor of(CommentDto dto) {
+        return new CommentCursor(dto.getCreated(), dto.getId());
+    }
+
+    public static CommentCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int pos = value.lastIndexOf(',');
+            return new CommentCursor(LocalDateTime.parse(value.substring(0, pos)),
+                    Long.parseLong(value.substring(pos + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor: " + token);
+        }
+    }
+
+    public String encode() {
+        String value = created + "," + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
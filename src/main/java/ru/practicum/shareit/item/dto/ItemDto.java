@@ -19,6 +19,11 @@ public class ItemDto {
     private BookingDtoItem nextBooking;
     private List<CommentDto> comments;
     private Long requestId;
+    private long commentCount;
+
+    public ItemDto(long id, String name, String description, Boolean available, Long requestId, long commentCount) {
+        this(id, name, description, available, null, null, List.of(), requestId, commentCount);
+    }
 
     public ItemDto(String name, String description, boolean available) {
         this.name = name;
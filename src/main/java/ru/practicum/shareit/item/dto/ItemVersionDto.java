@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ItemVersionDto {
+    private long id;
+    private long ownerId;
+    private long version;
+    private long comments;
+}
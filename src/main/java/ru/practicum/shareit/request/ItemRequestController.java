@@ -2,6 +2,8 @@ package ru.practicum.shareit.request;
 
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,7 +13,9 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.shareit.common.ConditionalGet;
 import ru.practicum.shareit.common.Create;
+import ru.practicum.shareit.common.RequestExecutor;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoPost;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
@@ -19,6 +23,7 @@ import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -27,6 +32,7 @@ import java.util.List;
 public class ItemRequestController {
 
     private ItemRequestService service;
+    private RequestExecutor executor;
 
     @PostMapping
     public ItemRequestDto createRequest(@Validated({Create.class})
@@ -37,25 +43,29 @@ public class ItemRequestController {
     }
 
     @GetMapping("/{requestId}")
-    public ItemRequestDtoResponse getById(@PathVariable Long requestId,
-                                          @RequestHeader("X-Sharer-User-Id") Long userId) {
+    public CompletableFuture<ResponseEntity<ItemRequestDtoResponse>> getById(
+            @PathVariable Long requestId,
+            @RequestHeader("X-Sharer-User-Id") Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         log.info("GET /requests/{}/", requestId);
-        return service.getById(requestId, userId);
+        return executor.supply(() -> ConditionalGet.respond(ifNoneMatch, service.getTag(requestId, userId),
+                () -> service.getById(requestId, userId)));
     }
 
     @GetMapping
-    public List<ItemRequestDtoResponse> findAllByUserId(@RequestHeader("X-Sharer-User-Id") Long userId) {
+    public CompletableFuture<List<ItemRequestDtoResponse>> findAllByUserId(
+            @RequestHeader("X-Sharer-User-Id") Long userId) {
         log.info("GET /requests/");
-        return service.getByUserId(userId);
+        return executor.supply(() -> service.getByUserId(userId));
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDtoResponse> findAll(@RequestParam(defaultValue = "0")
-                                                @PositiveOrZero int from,
-                                                @RequestParam(defaultValue = "10")
-                                                @Positive int size,
-                                                @RequestHeader("X-Sharer-User-Id") Long userId) {
+    public CompletableFuture<List<ItemRequestDtoResponse>> findAll(@RequestParam(defaultValue = "0")
+                                                                   @PositiveOrZero int from,
+                                                                   @RequestParam(defaultValue = "10")
+                                                                   @Positive int size,
+                                                                   @RequestHeader("X-Sharer-User-Id") Long userId) {
         log.info("GET /requests/all?from={}&size={}", from, size);
-        return service.getAll(from, size, userId);
+        return executor.supply(() -> service.getAll(from, size, userId));
     }
 }
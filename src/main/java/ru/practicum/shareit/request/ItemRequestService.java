@@ -11,6 +11,8 @@ public interface ItemRequestService {
 
     ItemRequestDtoResponse getById(long requestId, long userId);
 
+    String getTag(long requestId, long userId);
+
     List<ItemRequestDtoResponse> getByUserId(long userId);
 
     List<ItemRequestDtoResponse> getAll(int from, int size, long userId);
@@ -9,15 +9,13 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exceptions.BadRequestException;
 import ru.practicum.shareit.exceptions.NotFoundException;
-import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.dao.ItemRepository;
 import ru.practicum.shareit.item.dto.ItemDtoForRequest;
 import ru.practicum.shareit.request.dao.ItemRequestRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoPost;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
-import ru.practicum.shareit.user.dao.UserRepository;
-import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.UserService;
 
 import java.util.List;
 import java.util.Map;
@@ -28,7 +26,7 @@ import java.util.stream.Collectors;
 @Transactional(readOnly = true)
 public class ItemRequestServiceImpl implements ItemRequestService {
 
-    private UserRepository userRepository;
+    private UserService userService;
     private ItemRepository itemRepository;
     private ItemRequestRepository repository;
 
@@ -37,8 +35,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     @Transactional
     public ItemRequestDto create(ItemRequestDtoPost request, long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User #" + userId + " not found"));
+        userService.getUser(userId);
         ItemRequest req = ItemRequestMapper.toItemRequest(request, userId);
         req = repository.save(req);
         return ItemRequestMapper.toItemRequestDto(req);
@@ -46,14 +43,10 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public ItemRequestDtoResponse getById(long requestId, long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User #" + userId + " not found"));
+        userService.getUser(userId);
         ItemRequest req = repository.findById(requestId)
                 .orElseThrow(() -> new NotFoundException("ItemRequest #" + requestId + " not found"));
-        List<ItemDtoForRequest> list = itemRepository.findByRequestId(requestId)
-                .stream()
-                .map(ItemMapper::toItemDtoForRequest)
-                .collect(Collectors.toList());
+        List<ItemDtoForRequest> list = itemRepository.findDtoByRequestId(requestId);
 
         ItemRequestDtoResponse res = ItemRequestMapper.toItemRequestDtoResponse(req, list);
         res.setItems(list);
@@ -61,10 +54,17 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         return res;
     }
 
+    @Override
+    public String getTag(long requestId, long userId) {
+        userService.getUser(userId);
+        return repository.findVersionById(requestId)
+                .map(v -> v.getId() + "-" + v.getVersion() + "-" + v.getItemsVersion())
+                .orElse(null);
+    }
+
     @Override
     public List<ItemRequestDtoResponse> getByUserId(long userId) {
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User #" + userId + " not found"));
+        userService.getUser(userId);
         List<ItemRequest> list = repository.findByRequestorId(userId, sortDesc);
 
         return fillItems(list);
@@ -75,8 +75,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         if (from < 0 || size <= 0) {
             throw new BadRequestException("from должно быть положительным, size больше 0");
         }
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new NotFoundException("User #" + userId + " not found"));
+        userService.getUser(userId);
         Pageable pageable = PageRequest.of(from / size, size, sortDesc);
         Page<ItemRequest> list = repository.findByRequestorIdNot(userId, pageable);
 
@@ -86,9 +85,8 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     private List<ItemRequestDtoResponse> fillItems(List<ItemRequest> list) {
         List<Long> ids = list.stream().map(ItemRequest::getId).collect(Collectors.toList());
 
-        Map<Long, List<ItemDtoForRequest>> mapItems = itemRepository.findAllByRequestIdIn(ids)
+        Map<Long, List<ItemDtoForRequest>> mapItems = itemRepository.findDtoByRequestIdIn(ids)
                 .stream()
-                .map(ItemMapper::toItemDtoForRequest)
                 .collect(Collectors.groupingBy(c -> c.getRequestId(), Collectors.toList()));
 
         List<ItemRequestDtoResponse> res = list.stream()
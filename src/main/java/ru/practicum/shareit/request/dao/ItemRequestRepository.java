@@ -4,12 +4,24 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.dto.ItemRequestVersionDto;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
     List<ItemRequest> findByRequestorId(long requestorId, Sort sort);
 
     Page<ItemRequest> findByRequestorIdNot(long requestorId, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.request.dto.ItemRequestVersionDto(r.id, r.version, r.itemsVersion) " +
+            "from ItemRequest r where r.id = ?1")
+    Optional<ItemRequestVersionDto> findVersionById(long id);
+
+    @Modifying
+    @Query("update ItemRequest r set r.itemsVersion = r.itemsVersion + 1 where r.id = ?1")
+    int incrementItemsVersion(long id);
 }
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ItemRequestVersionDto {
+    private long id;
+    private long version;
+    private long itemsVersion;
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.user;
+
+import lombok.AllArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.user.dao.UserRepository;
+import ru.practicum.shareit.user.dto.CachedUser;
+import ru.practicum.shareit.user.model.User;
+
+/**
+ * Cached user lookups behind the {@link UserService#CACHE} cache. The cache holds immutable
+ * {@link CachedUser} values, so a caller changing the {@code UserDto} it got back can't change what
+ * the next caller reads. Kept apart from {@link UserServiceImpl} so its own calls go through the cache proxy.
+ */
+@Component
+@AllArgsConstructor
+@Transactional(readOnly = true)
+public class UserCache {
+    private final UserRepository repository;
+
+    @Cacheable(value = UserService.CACHE, key = "#id", sync = true)
+    public CachedUser get(long id) {
+        User user = repository.findById(id)
+                .orElseThrow(() -> new NotFoundException("User #" + id + " not found"));
+        return new CachedUser(user.getId(), user.getName(), user.getEmail());
+    }
+}
@@ -1,8 +1,12 @@
 package ru.practicum.shareit.user;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -10,13 +14,28 @@ import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.common.ConditionalGet;
 import ru.practicum.shareit.common.Create;
+import ru.practicum.shareit.common.Headers;
+import ru.practicum.shareit.common.NdjsonWriter;
+import ru.practicum.shareit.common.RequestExecutor;
 import ru.practicum.shareit.common.Update;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @RestController
@@ -25,6 +44,10 @@ import java.util.List;
 public class UserController {
     @Autowired
     UserService service;
+    @Autowired
+    private RequestExecutor executor;
+    @Autowired
+    private ObjectMapper mapper;
 
     @PostMapping
     public UserDto addUser(@Validated({Create.class}) @RequestBody UserDto user) {
@@ -32,6 +55,23 @@ public class UserController {
         return service.createUser(user);
     }
 
+    @PostMapping(value = "/import", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void importUsers(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                            InputStream body,
+                            HttpServletResponse response) throws IOException {
+        log.info("POST /users/import {}", contentType);
+        boolean csv = contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"));
+        response.setContentType(NdjsonWriter.NDJSON.toString());
+        try (UserImportReader users = new UserImportReader(new BufferedReader(new InputStreamReader(body,
+                contentType.getCharset() == null ? StandardCharsets.UTF_8 : contentType.getCharset())), mapper, csv);
+             NdjsonWriter writer = new NdjsonWriter(mapper, response.getOutputStream())) {
+            service.importUsers(users, writer::write);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
     @PatchMapping("/{userId}")
     public UserDto updateUser(@Validated({Update.class}) @RequestBody UserDto user,
                               @PathVariable long userId) {
@@ -46,15 +86,39 @@ public class UserController {
     }
 
     @GetMapping("/{id}")
-    public UserDto findUserById(@PathVariable long id) {
+    public CompletableFuture<ResponseEntity<UserDto>> findUserById(@PathVariable long id,
+                                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH,
+                                                                           required = false) String ifNoneMatch) {
         log.info("GET /users/{}", id);
-        return service.getUser(id);
+        return executor.supply(() -> ConditionalGet.respond(ifNoneMatch, service.getUserTag(id),
+                () -> service.getUser(id)));
+    }
+
+    @GetMapping(params = "after")
+    public CompletableFuture<List<UserDto>> getUsers(@RequestParam long after,
+                                                     @RequestParam(defaultValue = "10") int size,
+                                                     HttpServletResponse response) {
+        log.info("GET /users/?after={}&size={}", after, size);
+        return executor.supply(() -> {
+            List<UserDto> list = service.getUsers(after, size);
+            if (list.size() == size) {
+                response.setHeader(Headers.NEXT_CURSOR, String.valueOf(list.get(list.size() - 1).getId()));
+            }
+            return list;
+        });
     }
 
     @GetMapping
-    public List<UserDto> getAllUsers() {
+    public ResponseEntity<StreamingResponseBody> getAllUsers() {
         log.info("GET /users/");
-        return service.getAllUsers();
+        StreamingResponseBody body = out -> {
+            try (NdjsonWriter writer = NdjsonWriter.array(mapper, out)) {
+                service.exportUsers(writer::write);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
 }
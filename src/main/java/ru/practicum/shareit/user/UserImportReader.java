@@ -0,0 +1,209 @@
+package ru.practicum.shareit.user;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads users one record at a time from an NDJSON or "name,email" CSV body.
+ * CSV fields may be quoted as in RFC 4180: a quoted field can hold commas, line breaks and doubled quotes.
+ * A record that can't be parsed is returned as {@code null} so the import can report it and go on.
+ * Lines longer than {@link #MAX_LINE_LENGTH} and quoted records spanning more than {@link #MAX_RECORD_LINES}
+ * lines or {@link #MAX_RECORD_LENGTH} characters are rejected the same way, so a stray quote can't pull
+ * the rest of the body into memory.
+ */
+public class UserImportReader implements Iterator<UserDto>, Closeable {
+    static final int MAX_LINE_LENGTH = 4096;
+    static final int MAX_RECORD_LINES = 16;
+    static final int MAX_RECORD_LENGTH = 8192;
+    private static final String CSV_HEADER = "name,email";
+
+    private final BufferedReader reader;
+    private final ObjectReader json;
+    private final StringBuilder buffer = new StringBuilder();
+    private String line;
+    private boolean rejected;
+    private boolean lineTooLong;
+    private boolean first = true;
+
+    public UserImportReader(BufferedReader reader, ObjectMapper mapper, boolean csv) {
+        this.reader = reader;
+        this.json = csv ? null : mapper.readerFor(UserDto.class);
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (line == null) {
+                String next = readLine();
+                if (next == null) {
+                    return false;
+                }
+                if (lineTooLong) {
+                    first = false;
+                    reject();
+                    break;
+                }
+                boolean header = first && json == null && next.replace(" ", "").equalsIgnoreCase(CSV_HEADER);
+                first = false;
+                if (!next.isBlank() && !header) {
+                    line = json == null ? completeCsvRecord(next) : next;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public UserDto next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String value = line;
+        boolean bad = rejected;
+        line = null;
+        rejected = false;
+        if (bad) {
+            return null;
+        }
+        return json == null ? parseCsv(value) : parseJson(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private String completeCsvRecord(String value) throws IOException {
+        StringBuilder record = new StringBuilder(value);
+        int quotes = countQuotes(value);
+        int lines = 1;
+        while (quotes % 2 != 0) {
+            if (lines >= MAX_RECORD_LINES || record.length() >= MAX_RECORD_LENGTH) {
+                return reject();
+            }
+            value = readLine();
+            if (value == null) {
+                break;
+            }
+            if (lineTooLong) {
+                return reject();
+            }
+            record.append('\n').append(value);
+            quotes += countQuotes(value);
+            lines++;
+        }
+        return record.toString();
+    }
+
+    private String reject() {
+        rejected = true;
+        line = "";
+        return line;
+    }
+
+    /**
+     * Like {@link BufferedReader#readLine()}, but keeps at most {@link #MAX_LINE_LENGTH} characters
+     * and sets {@link #lineTooLong} when the rest of the line was skipped.
+     */
+    private String readLine() throws IOException {
+        buffer.setLength(0);
+        lineTooLong = false;
+        int c = reader.read();
+        if (c < 0) {
+            return null;
+        }
+        while (c >= 0 && c != '\n') {
+            if (buffer.length() < MAX_LINE_LENGTH) {
+                buffer.append((char) c);
+            } else {
+                lineTooLong = true;
+            }
+            c = reader.read();
+        }
+        int end = buffer.length();
+        if (end > 0 && buffer.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return buffer.substring(0, end);
+    }
+
+    private static int countQuotes(CharSequence value) {
+        int res = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                res++;
+            }
+        }
+        return res;
+    }
+
+    private UserDto parseJson(String value) {
+        try {
+            return json.readValue(value);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static UserDto parseCsv(String value) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        int i = 0;
+        while (true) {
+            while (i < value.length() && value.charAt(i) == ' ') {
+                i++;
+            }
+            if (i < value.length() && value.charAt(i) == '"') {
+                i++;
+                while (true) {
+                    if (i >= value.length()) {
+                        return null;
+                    }
+                    char c = value.charAt(i++);
+                    if (c != '"') {
+                        field.append(c);
+                    } else if (i < value.length() && value.charAt(i) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                while (i < value.length() && value.charAt(i) == ' ') {
+                    i++;
+                }
+                if (i < value.length() && value.charAt(i) != ',') {
+                    return null;
+                }
+                fields.add(field.toString());
+            } else {
+                int end = value.indexOf(',', i);
+                String raw = value.substring(i, end < 0 ? value.length() : end);
+                if (raw.indexOf('"') >= 0) {
+                    return null;
+                }
+                fields.add(raw.trim());
+                i = end < 0 ? value.length() : end;
+            }
+            field.setLength(0);
+            if (i >= value.length()) {
+                break;
+            }
+            i++;
+        }
+        return fields.size() == 2 ? new UserDto(0, fields.get(0), fields.get(1)) : null;
+    }
+}
@@ -1,15 +1,26 @@
 package ru.practicum.shareit.user;
 
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResult;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
+    String CACHE = "users";
+
     UserDto createUser(UserDto user);
 
+    void importUsers(Iterator<UserDto> users, Consumer<UserImportResult> consumer);
+
     UserDto getUser(long id);
 
-    List<UserDto> getAllUsers();
+    String getUserTag(long id);
+
+    List<UserDto> getUsers(long afterId, int size);
+
+    void exportUsers(Consumer<UserDto> consumer);
 
     UserDto updateUser(UserDto user, long userId);
 
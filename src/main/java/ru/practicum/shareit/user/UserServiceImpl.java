@@ -3,15 +3,34 @@ package ru.practicum.shareit.user;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.common.Create;
 import ru.practicum.shareit.exceptions.BadRequestException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.user.dao.UserRepository;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResult;
 import ru.practicum.shareit.user.model.User;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -21,6 +40,18 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
     @Autowired
     private UserRepository repository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private Validator validator;
+    @Autowired
+    private UserCache userCache;
+
+    private static final int IMPORT_CHUNK = 1000;
+    private static final int EXPORT_PAGE = 1000;
+    private static final String INSERT = "insert into USERS (NAME, EMAIL) values (?, ?)";
 
     @Override
     @Transactional
@@ -31,23 +62,129 @@ public class UserServiceImpl implements UserService {
         return UserMapper.toUserDto(user);
     }
 
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void importUsers(Iterator<UserDto> users, Consumer<UserImportResult> consumer) {
+        List<UserDto> chunk = new ArrayList<>(IMPORT_CHUNK);
+        long index = 0;
+        long created = 0;
+        while (users.hasNext()) {
+            chunk.add(users.next());
+            if (chunk.size() == IMPORT_CHUNK || !users.hasNext()) {
+                created += importChunk(index, chunk, consumer);
+                index += chunk.size();
+                chunk.clear();
+            }
+        }
+        log.info("Users imported: {} of {} created", created, index);
+    }
+
+    private int importChunk(long first, List<UserDto> chunk, Consumer<UserImportResult> consumer) {
+        UserImportResult[] results = new UserImportResult[chunk.size()];
+        Map<String, Integer> accepted = new LinkedHashMap<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            UserDto dto = chunk.get(i);
+            String error = validateImportRow(dto);
+            if (error == null && accepted.containsKey(dto.getEmail())) {
+                error = "Email " + dto.getEmail() + " повторяется в файле";
+            }
+            if (error != null) {
+                results[i] = new UserImportResult(first + i, null, error);
+            } else {
+                accepted.put(dto.getEmail(), i);
+            }
+        }
+        if (!accepted.isEmpty()) {
+            for (UserDto existing : repository.findDtoByEmailIn(accepted.keySet())) {
+                int i = accepted.remove(existing.getEmail());
+                results[i] = new UserImportResult(first + i, null, "Email " + existing.getEmail() + " уже занят");
+            }
+        }
+        if (!accepted.isEmpty()) {
+            List<UserDto> rows = new ArrayList<>();
+            accepted.values().forEach(i -> rows.add(chunk.get(i)));
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT, rows, rows.size(),
+                        (ps, dto) -> {
+                            ps.setString(1, dto.getName());
+                            ps.setString(2, dto.getEmail());
+                        }));
+            } catch (DataIntegrityViolationException e) {
+                for (UserDto dto : rows) {
+                    try {
+                        jdbcTemplate.update(INSERT, dto.getName(), dto.getEmail());
+                    } catch (DuplicateKeyException rowError) {
+                        int i = accepted.remove(dto.getEmail());
+                        results[i] = new UserImportResult(first + i, null, "Email " + dto.getEmail() + " уже занят");
+                    } catch (DataIntegrityViolationException rowError) {
+                        int i = accepted.remove(dto.getEmail());
+                        results[i] = new UserImportResult(first + i, null, "Не удалось сохранить пользователя");
+                    }
+                }
+            }
+        }
+        Map<String, UserDto> inserted = accepted.isEmpty() ? Map.of() : repository.findDtoByEmailIn(accepted.keySet())
+                .stream()
+                .collect(Collectors.toMap(UserDto::getEmail, Function.identity()));
+        accepted.forEach((email, i) -> results[i] = new UserImportResult(first + i, inserted.get(email), null));
+        for (UserImportResult result : results) {
+            consumer.accept(result);
+        }
+        return accepted.size();
+    }
+
+    private String validateImportRow(UserDto dto) {
+        if (dto == null) {
+            return "Некорректная строка";
+        }
+        Set<ConstraintViolation<?>> violations = new HashSet<>(validator.validate(dto, Create.class));
+        violations.addAll(validator.validate(UserMapper.toUser(dto)));
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(v -> v.getPropertyPath() + " " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+        return null;
+    }
+
     @Override
     public UserDto getUser(long id) {
-        User user = repository.findById(id)
-                .orElseThrow(() -> new NotFoundException("User #" + id + " not found"));
-        return UserMapper.toUserDto(user);
+        return userCache.get(id).toUserDto();
     }
 
     @Override
-    public List<UserDto> getAllUsers() {
-        List<UserDto> res = repository.findAll().stream()
-                .map(UserMapper::toUserDto).collect(Collectors.toList());
-        log.info("Users found {}", res.size());
-        return res;
+    public String getUserTag(long id) {
+        return repository.findVersionById(id)
+                .map(version -> id + "-" + version)
+                .orElse(null);
+    }
+
+    @Override
+    public List<UserDto> getUsers(long afterId, int size) {
+        if (size <= 0) {
+            throw new BadRequestException("size должно быть больше 0");
+        }
+        return repository.findDtoByIdAfter(afterId, PageRequest.ofSize(size));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void exportUsers(Consumer<UserDto> consumer) {
+        long lastId = 0;
+        List<UserDto> page;
+        do {
+            page = repository.findDtoByIdAfter(lastId, PageRequest.ofSize(EXPORT_PAGE));
+            for (UserDto user : page) {
+                consumer.accept(user);
+                lastId = user.getId();
+            }
+        } while (page.size() == EXPORT_PAGE);
     }
 
     @Override
     @Transactional
+    @CacheEvict(value = CACHE, key = "#userId")
     public UserDto updateUser(UserDto dto, long userId) {
         User user = repository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User #" + userId + " not found"));
@@ -71,6 +208,7 @@ public class UserServiceImpl implements UserService {
 
     @Override
     @Transactional
+    @CacheEvict(value = CACHE, key = "#id")
     public UserDto deleteUser(long id) {
         UserDto user = getUser(id);
         repository.deleteById(id);
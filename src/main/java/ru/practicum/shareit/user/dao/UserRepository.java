@@ -1,7 +1,24 @@
 package ru.practicum.shareit.user.dao;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface UserRepository extends JpaRepository<User, Long> {
+    String DTO = "select new ru.practicum.shareit.user.dto.UserDto(u.id, u.name, u.email) from User u ";
+
+    @Query(DTO + "where u.email in ?1")
+    List<UserDto> findDtoByEmailIn(Collection<String> emails);
+
+    @Query(DTO + "where u.id > ?1 order by u.id")
+    List<UserDto> findDtoByIdAfter(long afterId, Pageable pageable);
+
+    @Query("select u.version from User u where u.id = ?1")
+    Optional<Long> findVersionById(long id);
 }
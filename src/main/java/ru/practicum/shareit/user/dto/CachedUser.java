@@ -0,0 +1,14 @@
+package ru.practicum.shareit.user.dto;
+
+import lombok.Value;
+
+@Value
+public class CachedUser {
+    private long id;
+    private String name;
+    private String email;
+
+    public UserDto toUserDto() {
+        return new UserDto(id, name, email);
+    }
+}
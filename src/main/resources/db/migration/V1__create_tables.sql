@@ -1,8 +1,6 @@
-DROP ALL OBJECTS;
-
-create table IF NOT EXISTS USERS
+create table USERS
 (
-    ID  INTEGER not null auto_increment,
+    ID  INTEGER GENERATED BY DEFAULT AS IDENTITY,
     NAME     VARCHAR(50) not NULL,
     EMAIL    VARCHAR(50) not NULL,
 
@@ -10,9 +8,9 @@ create table IF NOT EXISTS USERS
     CONSTRAINT UQ_USER_EMAIL UNIQUE (EMAIL)
 );
 
-create table IF NOT EXISTS ITEMS
+create table ITEMS
 (
-    ID  INTEGER not null auto_increment,
+    ID  INTEGER GENERATED BY DEFAULT AS IDENTITY,
     NAME     VARCHAR(50),
     DESCRIPTION    VARCHAR(256),
     AVAILABLE BOOLEAN,
@@ -22,9 +20,9 @@ create table IF NOT EXISTS ITEMS
     constraint ITEMS_PK primary key (ID)
 );
 
-create table IF NOT EXISTS BOOKINGS
+create table BOOKINGS
 (
-    ID  INTEGER not null auto_increment,
+    ID  INTEGER GENERATED BY DEFAULT AS IDENTITY,
     START_DATE TIMESTAMP WITHOUT TIME ZONE,
     END_DATE TIMESTAMP WITHOUT TIME ZONE,
     ITEM_ID INTEGER,
@@ -34,9 +32,9 @@ create table IF NOT EXISTS BOOKINGS
     constraint BOOKINGS_PK primary key (ID)
 );
 
-create table IF NOT EXISTS REQUESTS
+create table REQUESTS
 (
-    ID  INTEGER not null auto_increment,
+    ID  INTEGER GENERATED BY DEFAULT AS IDENTITY,
     DESCRIPTION  VARCHAR(256),
     REQUESTOR_ID INTEGER,
     CREATED TIMESTAMP WITHOUT TIME ZONE NOT NULL,
@@ -44,9 +42,9 @@ create table IF NOT EXISTS REQUESTS
     CONSTRAINT REQUESTS_PK primary key (ID)
 );
 
-create table IF NOT EXISTS COMMENTS
+create table COMMENTS
 (
-    ID  INTEGER not null auto_increment,
+    ID  INTEGER GENERATED BY DEFAULT AS IDENTITY,
     TEXT VARCHAR(256),
     ITEM_ID INTEGER,
     AUTHOR_ID INTEGER,
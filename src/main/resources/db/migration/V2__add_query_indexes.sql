@@ -0,0 +1,15 @@
+create index IDX_BOOKINGS_BOOKER_START on BOOKINGS (BOOKER_ID, START_DATE desc);
+
+create index IDX_BOOKINGS_BOOKER_STATUS_START on BOOKINGS (BOOKER_ID, STATUS, START_DATE desc);
+
+create index IDX_BOOKINGS_ITEM_START on BOOKINGS (ITEM_ID, START_DATE desc);
+
+create index IDX_BOOKINGS_ITEM_STATUS_START on BOOKINGS (ITEM_ID, STATUS, START_DATE);
+
+create index IDX_ITEMS_OWNER on ITEMS (OWNER_ID);
+
+create index IDX_ITEMS_REQUEST on ITEMS (REQUEST_ID);
+
+create index IDX_REQUESTS_REQUESTOR_CREATED on REQUESTS (REQUESTOR_ID, CREATED desc);
+
+create index IDX_COMMENTS_ITEM_CREATED on COMMENTS (ITEM_ID, CREATED);
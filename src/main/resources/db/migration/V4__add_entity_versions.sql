@@ -0,0 +1,7 @@
+alter table USERS add column VERSION BIGINT default 0 not null;
+
+alter table ITEMS add column VERSION BIGINT default 0 not null;
+
+alter table REQUESTS add column VERSION BIGINT default 0 not null;
+
+alter table BOOKINGS add column VERSION BIGINT default 0 not null;
@@ -0,0 +1,7 @@
+alter table BOOKINGS add column OWNER_ID INTEGER;
+
+update BOOKINGS b set OWNER_ID = (select i.OWNER_ID from ITEMS i where i.ID = b.ITEM_ID);
+
+create index IDX_BOOKINGS_OWNER_START on BOOKINGS (OWNER_ID, START_DATE desc);
+
+create index IDX_BOOKINGS_OWNER_STATUS_START on BOOKINGS (OWNER_ID, STATUS, START_DATE desc);
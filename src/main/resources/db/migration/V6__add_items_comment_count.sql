@@ -0,0 +1,7 @@
+alter table ITEMS add column COMMENT_COUNT INTEGER default 0 not null;
+
+update ITEMS i set COMMENT_COUNT = (select count(*) from COMMENTS c where c.ITEM_ID = i.ID);
+
+drop index IDX_COMMENTS_ITEM_CREATED;
+
+create index IDX_COMMENTS_ITEM_CREATED_ID on COMMENTS (ITEM_ID, CREATED desc, ID desc);
@@ -0,0 +1 @@
+create index IDX_BOOKINGS_BOOKER_ITEM_END on BOOKINGS (BOOKER_ID, ITEM_ID, END_DATE);
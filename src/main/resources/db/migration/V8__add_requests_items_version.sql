@@ -0,0 +1,4 @@
+alter table REQUESTS add column ITEMS_VERSION BIGINT default 0 not null;
+
+update REQUESTS r set ITEMS_VERSION = (select count(*) + coalesce(sum(i.VERSION), 0) from ITEMS i
+                                       where i.REQUEST_ID = r.ID);
@@ -0,0 +1,131 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.web.server.LocalServerPort;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.request.ItemRequestService;
+import ru.practicum.shareit.user.UserService;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.when;
+
+/**
+ * With four Tomcat workers and a 300 ms "database" call, the blocking POST /requests handler needs
+ * REQUESTS / WORKERS * 300 ms, while the async GET handler releases the worker and finishes in about
+ * one call time. Exports blocked on the stream pool don't delay regular requests.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "server.tomcat.threads.max=" + AsyncLoadTest.WORKERS,
+        "server.tomcat.threads.min-spare=" + AsyncLoadTest.WORKERS,
+        "shareit.async.pool-size=" + AsyncLoadTest.REQUESTS,
+        "shareit.async.stream-pool-size=" + AsyncLoadTest.EXPORTS
+})
+class AsyncLoadTest {
+    static final int WORKERS = 4;
+    static final int REQUESTS = 64;
+    static final int EXPORTS = 16;
+    private static final long DB_DELAY_MS = 300;
+
+    @LocalServerPort
+    private int port;
+
+    @MockBean
+    private ItemRequestService requestService;
+    @MockBean
+    private UserService userService;
+    @MockBean
+    private BookingService bookingService;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @Test
+    void asyncBeatsBlockingOnSlowDatabase() {
+        when(requestService.getByUserId(anyLong())).thenReturn(List.of());
+        assertEquals(200, client.sendAsync(requests(), HttpResponse.BodyHandlers.ofString()).join().statusCode());
+        when(requestService.getByUserId(anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(DB_DELAY_MS);
+            return List.of();
+        });
+        when(requestService.create(any(), anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(DB_DELAY_MS);
+            return null;
+        });
+        HttpRequest create = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/requests"))
+                .header("X-Sharer-User-Id", "1")
+                .header("Content-Type", "application/json")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"description\":\"d\"}"))
+                .build();
+
+        long blockingMs = timeAll(create);
+        long asyncMs = timeAll(requests());
+
+        assertTrue(blockingMs >= REQUESTS / WORKERS * DB_DELAY_MS,
+                () -> "blocking requests took " + blockingMs + " ms");
+        assertTrue(asyncMs < blockingMs / 4,
+                () -> REQUESTS + " async requests took " + asyncMs + " ms, blocking ones " + blockingMs + " ms");
+    }
+
+    @Test
+    void exportsDoNotBlockRequests() throws Exception {
+        CountDownLatch exporting = new CountDownLatch(EXPORTS);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            exporting.countDown();
+            release.await(30, TimeUnit.SECONDS);
+            return null;
+        }).when(bookingService).exportByOwner(anyLong(), any());
+        when(requestService.getByUserId(anyLong())).thenReturn(List.of());
+
+        HttpRequest export = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/bookings/owner/export"))
+                .header("X-Sharer-User-Id", "1")
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        List<CompletableFuture<HttpResponse<String>>> exports = IntStream.range(0, EXPORTS)
+                .mapToObj(i -> client.sendAsync(export, HttpResponse.BodyHandlers.ofString()))
+                .collect(Collectors.toList());
+        try {
+            assertTrue(exporting.await(10, TimeUnit.SECONDS));
+            HttpResponse<String> response = client.sendAsync(requests(), HttpResponse.BodyHandlers.ofString())
+                    .get(5, TimeUnit.SECONDS);
+            assertEquals(200, response.statusCode());
+        } finally {
+            release.countDown();
+        }
+        exports.forEach(r -> assertEquals(200, r.join().statusCode()));
+    }
+
+    private long timeAll(HttpRequest request) {
+        long started = System.nanoTime();
+        List<CompletableFuture<HttpResponse<String>>> responses = IntStream.range(0, REQUESTS)
+                .mapToObj(i -> client.sendAsync(request, HttpResponse.BodyHandlers.ofString()))
+                .collect(Collectors.toList());
+        responses.forEach(r -> assertEquals(200, r.join().statusCode()));
+        return Duration.ofNanos(System.nanoTime() - started).toMillis();
+    }
+
+    private HttpRequest requests() {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/requests"))
+                .header("X-Sharer-User-Id", "1")
+                .timeout(Duration.ofSeconds(30))
+                .build();
+    }
+}
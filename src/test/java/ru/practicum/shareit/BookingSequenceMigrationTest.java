@@ -0,0 +1,67 @@
+package ru.practicum.shareit;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingDtoPost;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.dao.UserRepository;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+class BookingSequenceMigrationTest {
+    private static final int EXISTING = 100;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        FlywayMigrationStrategy migrateWithExistingBookings() {
+            return flyway -> {
+                Flyway.configure().configuration(flyway.getConfiguration()).target("2").load().migrate();
+                new JdbcTemplate(flyway.getConfiguration().getDataSource()).update(
+                        "insert into BOOKINGS (ID, START_DATE, END_DATE, ITEM_ID, BOOKER_ID, STATUS) " +
+                                "select X, now(), now(), 1, 1, 'WAITING' from SYSTEM_RANGE(1, ?)", EXISTING);
+                flyway.migrate();
+            };
+        }
+    }
+
+    @Test
+    void sequenceStartsAfterExistingIds() {
+        User owner = userRepository.save(new User(-1, "owner", "owner@yandex.com"));
+        User booker = userRepository.save(new User(-1, "booker", "booker@yandex.com"));
+        Item item = itemRepository.save(new Item(-1, "item", "description", true, owner, null));
+        LocalDateTime from = LocalDateTime.now().plusDays(1);
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            bookings.add(BookingMapper.toBooking(new BookingDtoPost(item.getId(), from.plusHours(i), from.plusHours(i + 1)),
+                    item, booker));
+        }
+        bookingRepository.saveAllAndFlush(bookings);
+        assertTrue(bookings.stream().allMatch(b -> b.getId() > EXISTING));
+        assertEquals(EXISTING + 60, bookingRepository.count());
+    }
+}
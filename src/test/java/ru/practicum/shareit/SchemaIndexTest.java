@@ -0,0 +1,269 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.dao.CommentRepository;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.request.dao.ItemRequestRepository;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs EXPLAIN on the statements the repositories actually send, with the same bind values.
+ * The first statement of each call must use the expected index, and no statement may scan a table.
+ */
+@DataJpaTest
+class SchemaIndexTest {
+    private static final List<Statement> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private DataSource dataSource;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private ItemRepository itemRepository;
+    @Autowired
+    private ItemRequestRepository requestRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private JdbcTemplate jdbc;
+    private final LocalDateTime now = LocalDateTime.now();
+    private final Pageable byStart = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "start"));
+    private final Pageable seek = PageRequest.of(0, 10, Sort.by(Sort.Direction.DESC, "start", "id"));
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        static BeanPostProcessor recordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource)) {
+                        return bean;
+                    }
+                    Class<?> type = bean instanceof EmbeddedDatabase ? EmbeddedDatabase.class : DataSource.class;
+                    return proxy(type, (proxy, method, args) -> {
+                        Object res = invoke(bean, method, args);
+                        return res instanceof Connection ? recordingConnection((Connection) res) : res;
+                    });
+                }
+            };
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("insert into USERS (NAME, EMAIL) " +
+                "select 'user' || X, 'user' || X || '@yandex.com' from SYSTEM_RANGE(1, 500)");
+        jdbc.execute("insert into ITEMS (NAME, DESCRIPTION, AVAILABLE, OWNER_ID, REQUEST_ID) " +
+                "select 'item' || X, 'description', true, mod(X, 100), mod(X, 50) from SYSTEM_RANGE(1, 1000)");
+        jdbc.execute("insert into BOOKINGS (ID, START_DATE, END_DATE, ITEM_ID, BOOKER_ID, OWNER_ID, STATUS) " +
+                "select next value for BOOKINGS_SEQ, dateadd('HOUR', X, now()), dateadd('HOUR', X + 1, now()), mod(X, 1000), mod(X, 500), " +
+                "mod(X, 100), " +
+                "case mod(X, 3) when 0 then 'WAITING' when 1 then 'APPROVED' else 'REJECTED' end " +
+                "from SYSTEM_RANGE(1, 10000)");
+        jdbc.execute("insert into REQUESTS (DESCRIPTION, REQUESTOR_ID, CREATED) " +
+                "select 'request', mod(X, 100), now() from SYSTEM_RANGE(1, 1000)");
+        jdbc.execute("insert into COMMENTS (TEXT, ITEM_ID, AUTHOR_ID, CREATED) " +
+                "select 'comment', mod(X, 1000), mod(X, 500), now() from SYSTEM_RANGE(1, 5000)");
+    }
+
+    @Test
+    void bookerQueries() {
+        assertUsesIndex(() -> bookingRepository.findByBookerId(1L, byStart),
+                "IDX_BOOKINGS_BOOKER_START");
+        assertUsesIndex(() -> bookingRepository.findByBookerIdAndStatus(1L, BookingStatus.WAITING, byStart),
+                "IDX_BOOKINGS_BOOKER_STATUS_START");
+        assertUsesIndex(() -> bookingRepository.findByBookerIdAndEndBefore(1L, now, byStart),
+                "IDX_BOOKINGS_BOOKER_START");
+        assertUsesIndex(() -> bookingRepository.findByBookerIdAndStartAfter(1L, now, byStart),
+                "IDX_BOOKINGS_BOOKER_START");
+        assertUsesIndex(() -> bookingRepository.findByBookerIdAndStartBeforeAndEndAfter(1L, now, now, byStart),
+                "IDX_BOOKINGS_BOOKER_START");
+        assertUsesIndex(() -> bookingRepository.seekByBooker(1L, now.plusYears(10), Long.MAX_VALUE, seek),
+                "IDX_BOOKINGS_BOOKER_START");
+    }
+
+    @Test
+    void ownerQueries() {
+        assertUsesIndex(() -> bookingRepository.findByOwnerId(1L, byStart),
+                "IDX_BOOKINGS_OWNER_START");
+        assertUsesIndex(() -> bookingRepository.findByOwnerIdAndStatus(1L, BookingStatus.WAITING, byStart),
+                "IDX_BOOKINGS_OWNER_STATUS_START");
+        assertUsesIndex(() -> bookingRepository.findByOwnerIdAndStartAfter(1L, now, byStart),
+                "IDX_BOOKINGS_OWNER_START");
+        assertUsesIndex(() -> bookingRepository.findByOwnerIdAndEndBefore(1L, now, byStart),
+                "IDX_BOOKINGS_OWNER_START");
+        assertUsesIndex(() -> bookingRepository.seekByOwner(1L, now.plusYears(10), Long.MAX_VALUE, seek),
+                "IDX_BOOKINGS_OWNER_START");
+        assertUsesIndex(() -> {
+            try (Stream<BookingDto> export = bookingRepository.streamDtoByOwner(1L)) {
+                export.forEach(b -> { });
+            }
+        }, "IDX_BOOKINGS_OWNER_START");
+    }
+
+    @Test
+    void itemBookingQueries() {
+        assertUsesIndex(() -> bookingRepository.findLastSlotPerItem(List.of(1L, 2L), now, BookingStatus.APPROVED),
+                "IDX_BOOKINGS_ITEM_(STATUS_)?START");
+        assertUsesIndex(() -> bookingRepository.findNextSlotPerItem(List.of(1L, 2L), now, BookingStatus.APPROVED),
+                "IDX_BOOKINGS_ITEM_(STATUS_)?START");
+        assertUsesIndex(() -> bookingRepository.findSlotsByItemIdAndStatus(1L, BookingStatus.APPROVED),
+                "IDX_BOOKINGS_ITEM_(STATUS_)?START");
+        assertUsesIndex(() -> bookingRepository.existsOverlapping(1L, now, now.plusDays(1),
+                        BookingStatus.APPROVED, 0L),
+                "IDX_BOOKINGS_ITEM_(STATUS_)?START");
+        assertUsesIndex(() -> bookingRepository.existsByBookerIdAndItemIdAndEndBeforeAndStatus(1L, 2L, now,
+                        BookingStatus.APPROVED),
+                "IDX_BOOKINGS_BOOKER_ITEM_END");
+    }
+
+    @Test
+    void itemAndRequestQueries() {
+        assertUsesIndex(() -> itemRepository.findDtoByOwnerId(1L, PageRequest.of(0, 10)),
+                "IDX_ITEMS_OWNER");
+        assertUsesIndex(() -> itemRepository.findDtoByRequestIdIn(List.of(1L, 2L)),
+                "IDX_ITEMS_REQUEST");
+        assertUsesIndex(() -> requestRepository.findByRequestorId(1L, Sort.by("created").descending()),
+                "IDX_REQUESTS_REQUESTOR_CREATED");
+    }
+
+    @Test
+    void commentQueries() {
+        assertUsesIndex(() -> commentRepository.seekDtoByItemId(1L, now.plusYears(10), Long.MAX_VALUE,
+                        PageRequest.ofSize(10)),
+                "IDX_COMMENTS_ITEM_CREATED_ID");
+        assertUsesIndex(() -> commentRepository.findLatestIdsByItemIdIn(List.of(1L, 2L), 10),
+                "IDX_COMMENTS_ITEM_CREATED_ID");
+    }
+
+    private void assertUsesIndex(Runnable call, String index) {
+        STATEMENTS.clear();
+        call.run();
+        List<Statement> statements = List.copyOf(STATEMENTS);
+        assertFalse(statements.isEmpty(), "No statement was executed");
+        for (int i = 0; i < statements.size(); i++) {
+            String plan = explain(statements.get(i));
+            if (i == 0) {
+                assertTrue(Pattern.compile(index).matcher(plan).find(),
+                        () -> "Expected " + index + " in plan:\n" + plan);
+            }
+            assertFalse(plan.contains("tableScan"), () -> "Unexpected table scan in plan:\n" + plan);
+        }
+    }
+
+    private String explain(Statement statement) {
+        return String.join("\n", jdbc.query(con -> {
+            PreparedStatement ps = con.prepareStatement("explain " + statement.sql);
+            for (Bind bind : statement.binds) {
+                bind.apply(ps);
+            }
+            return ps;
+        }, (rs, i) -> rs.getString(1)));
+    }
+
+    private static Connection recordingConnection(Connection connection) {
+        return proxy(Connection.class, (proxy, method, args) -> {
+            Object res = invoke(connection, method, args);
+            if (res instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+                return recordingStatement((String) args[0], (PreparedStatement) res);
+            }
+            return res;
+        });
+    }
+
+    private static PreparedStatement recordingStatement(String sql, PreparedStatement statement) {
+        List<Bind> binds = new ArrayList<>();
+        return proxy(PreparedStatement.class, (proxy, method, args) -> {
+            String name = method.getName();
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                binds.add(new Bind(method, args));
+            } else if (name.equals("clearParameters")) {
+                binds.clear();
+            } else if ((name.equals("executeQuery") || name.equals("execute")) && args == null
+                    && sql.trim().toLowerCase().startsWith("select")) {
+                STATEMENTS.add(new Statement(sql, List.copyOf(binds)));
+            }
+            return invoke(statement, method, args);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(SchemaIndexTest.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static class Statement {
+        private final String sql;
+        private final List<Bind> binds;
+
+        Statement(String sql, List<Bind> binds) {
+            this.sql = sql;
+            this.binds = binds;
+        }
+    }
+
+    private static class Bind {
+        private final Method method;
+        private final Object[] args;
+
+        Bind(Method method, Object[] args) {
+            this.method = method;
+            this.args = args;
+        }
+
+        void apply(PreparedStatement ps) throws SQLException {
+            try {
+                method.invoke(ps, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof SQLException) {
+                    throw (SQLException) cause;
+                }
+                throw new IllegalStateException(cause);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
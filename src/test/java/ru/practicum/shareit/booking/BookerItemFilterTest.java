@@ -0,0 +1,67 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class BookerItemFilterTest {
+    private static final int PAIRS = 10_000;
+
+    private BookingRepository repository;
+    private BookerItemFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(BookingRepository.class);
+        when(repository.findSlotsByStatusAndIdAfter(eq(BookingStatus.APPROVED), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(new BookingDtoItem(1L, 5L, null, null, 7L)));
+        filter = new BookerItemFilter(repository, true, PAIRS);
+    }
+
+    @Test
+    void notReadyAllowsEverything() {
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain(1, 2));
+        filter.rebuild();
+        assertTrue(filter.isReady());
+        assertTrue(filter.mightContain(5, 7));
+        assertFalse(filter.mightContain(7, 5));
+    }
+
+    @Test
+    void disabledAllowsEverything() {
+        BookerItemFilter disabled = new BookerItemFilter(repository, false, PAIRS);
+        disabled.rebuild();
+        assertFalse(disabled.isReady());
+        assertTrue(disabled.mightContain(7, 5));
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void noFalseNegatives() {
+        filter.rebuild();
+        for (long i = 0; i < PAIRS; i++) {
+            filter.add(i, i * 3);
+        }
+        int falsePositives = 0;
+        for (long i = 0; i < PAIRS; i++) {
+            assertTrue(filter.mightContain(i, i * 3));
+            if (filter.mightContain(i, i * 3 + 1)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < PAIRS * 3 / 100, () -> "Too many false positives");
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingAvailabilityIndexTest {
+    private static final long ITEM_ID = 1;
+
+    private final BookingRepository repository = mock(BookingRepository.class);
+    private final LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+    @Test
+    void writeDuringLoadIsKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(repository.findSlotsByItemIdAndStatus(anyLong(), eq(BookingStatus.APPROVED))).thenAnswer(inv -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of();
+        });
+        BookingAvailabilityIndex index = new BookingAvailabilityIndex(repository, 100, Duration.ofMinutes(1));
+
+        CompletableFuture<Boolean> load = CompletableFuture.supplyAsync(() ->
+                index.isFree(ITEM_ID, start, start.plusHours(1), -1));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> write = CompletableFuture.runAsync(() ->
+                index.add(ITEM_ID, new BookingDtoItem(10L, 2L, start, start.plusHours(1))));
+        Thread.sleep(100);
+        release.countDown();
+        load.get(5, TimeUnit.SECONDS);
+        write.get(5, TimeUnit.SECONDS);
+
+        assertFalse(index.isFree(ITEM_ID, start, start.plusHours(1), -1));
+        assertEquals(10L, index.nextAfter(ITEM_ID, start.minusHours(1)).getId());
+        verify(repository, times(1)).findSlotsByItemIdAndStatus(ITEM_ID, BookingStatus.APPROVED);
+    }
+
+    @Test
+    void expiresAfterLoadDespiteLocalWrites() throws Exception {
+        BookingDtoItem remote = new BookingDtoItem(20L, 3L, start.plusDays(1), start.plusDays(1).plusHours(1));
+        when(repository.findSlotsByItemIdAndStatus(ITEM_ID, BookingStatus.APPROVED))
+                .thenReturn(List.of())
+                .thenReturn(List.of(remote));
+        BookingAvailabilityIndex index = new BookingAvailabilityIndex(repository, 100, Duration.ofMillis(200));
+
+        assertNull(index.nextAfter(ITEM_ID, start));
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(100);
+            index.add(ITEM_ID, new BookingDtoItem(10L + i, 2L, start.minusDays(i + 1), start.minusDays(i + 1)
+                    .plusHours(1)));
+        }
+        assertEquals(remote.getId(), index.nextAfter(ITEM_ID, start).getId());
+        verify(repository, times(2)).findSlotsByItemIdAndStatus(ITEM_ID, BookingStatus.APPROVED);
+    }
+}
@@ -0,0 +1,165 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoPost;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exceptions.ConflictException;
+import ru.practicum.shareit.exceptions.ValidationException;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoPost;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class BookingConcurrencyTest {
+    private static final int THREADS = 8;
+
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    private UserDto owner;
+    private UserDto booker;
+    private LocalDateTime from;
+
+    @BeforeEach
+    void setUp() {
+        owner = userService.createUser(new UserDto(0, "owner", "owner@google.com"));
+        booker = userService.createUser(new UserDto(0, "booker", "booker@google.com"));
+        from = LocalDateTime.now().plusDays(1);
+    }
+
+    @Test
+    void overlappingApprovesKeepOneBooking() throws Exception {
+        int rounds = 20;
+        AtomicInteger approved = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        long started = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            ItemDto item = createItem(round);
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                ids.add(bookingService.create(new BookingDtoPost(item.getId(), from.plusMinutes(i * 10L),
+                        from.plusHours(2).plusMinutes(i * 10L)), booker.getId()).getId());
+            }
+            runAll(ids.stream().map(id -> (Callable<Void>) () -> {
+                try {
+                    bookingService.approve(id, owner.getId(), true);
+                    approved.incrementAndGet();
+                } catch (ValidationException | ConflictException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }).collect(Collectors.toList()));
+
+            List<Booking> bookings = bookingRepository.findAllById(ids).stream()
+                    .filter(b -> b.getStatus() == BookingStatus.APPROVED)
+                    .collect(Collectors.toList());
+            assertEquals(1, bookings.size());
+            assertEquals(bookings.get(0).getId(),
+                    bookingService.getById(bookings.get(0).getId(), owner.getId()).getId());
+        }
+        logThroughput("overlapping approve", rounds * THREADS, started);
+        assertEquals(rounds, approved.get());
+        assertEquals(rounds * (THREADS - 1), rejected.get());
+    }
+
+    @Test
+    void samePatchAppliedOnce() throws Exception {
+        int rounds = 20;
+        long started = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            ItemDto item = createItem(round);
+            BookingDto booking = bookingService.create(
+                    new BookingDtoPost(item.getId(), from, from.plusHours(1)), booker.getId());
+            AtomicInteger succeeded = new AtomicInteger();
+            AtomicInteger failed = new AtomicInteger();
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                boolean approve = i % 2 == 0;
+                tasks.add(() -> {
+                    try {
+                        bookingService.approve(booking.getId(), owner.getId(), approve);
+                        succeeded.incrementAndGet();
+                    } catch (ValidationException | ConflictException e) {
+                        failed.incrementAndGet();
+                    }
+                    return null;
+                });
+            }
+            runAll(tasks);
+
+            Booking saved = bookingRepository.findById(booking.getId()).orElseThrow();
+            assertNotEquals(BookingStatus.WAITING, saved.getStatus());
+            assertEquals(succeeded.get(), saved.getVersion());
+            assertEquals(THREADS, succeeded.get() + failed.get());
+        }
+        logThroughput("concurrent patch", rounds * THREADS, started);
+    }
+
+    @Test
+    void differentItemsDoNotConflict() throws Exception {
+        int count = THREADS * 25;
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ItemDto item = createItem(i);
+            ids.add(bookingService.create(
+                    new BookingDtoPost(item.getId(), from, from.plusHours(1)), booker.getId()).getId());
+        }
+        long started = System.nanoTime();
+        runAll(ids.stream().map(id -> (Callable<Void>) () -> {
+            bookingService.approve(id, owner.getId(), true);
+            return null;
+        }).collect(Collectors.toList()));
+        logThroughput("independent approve", count, started);
+        assertTrue(bookingRepository.findAllById(ids).stream()
+                .allMatch(b -> b.getStatus() == BookingStatus.APPROVED));
+    }
+
+    private ItemDto createItem(int n) {
+        return itemService.createItem(new ItemDtoPost("item" + n, "description", true, null), owner.getId());
+    }
+
+    private void runAll(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void logThroughput(String name, int ops, long started) {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        log.info("{}: {} ops in {} ms, {} ops/s", name, ops, Math.round(seconds * 1000), Math.round(ops / seconds));
+    }
+}
@@ -7,16 +7,25 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoPost;
+import ru.practicum.shareit.common.Headers;
+import ru.practicum.shareit.common.NdjsonWriter;
+import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.mockito.Mockito.*;
 import static org.hamcrest.Matchers.is;
@@ -66,6 +75,28 @@ class BookingControllerTest {
                 .create(any(BookingDtoPost.class), any(Long.class));
     }
 
+    @Test
+    void createBatch() throws Exception {
+        List<BookingBatchResult> results = List.of(new BookingBatchResult(0, dto, null),
+                new BookingBatchResult(1, null, "Item is unavailable"));
+        when(bookingService.createBatch(anyList(), anyLong()))
+                .thenReturn(results);
+
+        mvc.perform(post("/bookings/batch")
+                        .content(mapper.writeValueAsString(List.of(dtoPost, dtoPost)))
+                        .header("X-Sharer-User-Id", 1)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].booking.id", is(dto.getId()), Long.class))
+                .andExpect(jsonPath("$[1].error", is("Item is unavailable")))
+                .andExpect(jsonPath("$[1].booking").doesNotExist());
+
+        verify(bookingService, times(1))
+                .createBatch(anyList(), eq(1L));
+    }
+
     @Test
     void approve() throws Exception {
         dto.setStatus(BookingStatus.APPROVED);
@@ -86,11 +117,14 @@ class BookingControllerTest {
     void getById() throws Exception {
         when(bookingService.getById(anyLong(), anyLong()))
                 .thenReturn(dto);
-        mvc.perform(get("/bookings/1")
+        MvcResult result = mvc.perform(get("/bookings/1")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(dto)));
 
@@ -102,11 +136,14 @@ class BookingControllerTest {
     void getList() throws Exception {
         when(bookingService.getListByBooker(anyLong(), anyString(), anyInt(), anyInt()))
                 .thenReturn(List.of(dto));
-        mvc.perform(get("/bookings")
+        MvcResult result = mvc.perform(get("/bookings")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(List.of(dto))));
 
@@ -118,15 +155,66 @@ class BookingControllerTest {
     void getListByOwner() throws Exception {
         when(bookingService.getListByOwner(anyLong(), anyString(), anyInt(), anyInt()))
                 .thenReturn(List.of(dto));
-        mvc.perform(get("/bookings/owner")
+        MvcResult result = mvc.perform(get("/bookings/owner")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(List.of(dto))));
 
         verify(bookingService, times(1))
                 .getListByOwner(anyLong(), anyString(), anyInt(), anyInt());
     }
-}
\ No newline at end of file
+
+    @Test
+    void exportByOwner() throws Exception {
+        BookingDto other = new BookingDto(2, from, till, new ItemDto(), new UserDto(), BookingStatus.WAITING);
+        doAnswer(invocation -> {
+            Consumer<BookingDto> consumer = invocation.getArgument(1);
+            consumer.accept(dto);
+            consumer.accept(other);
+            return null;
+        }).when(bookingService).exportByOwner(anyLong(), any());
+        MvcResult result = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 1L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(NdjsonWriter.NDJSON))
+                .andExpect(content().string(mapper.writeValueAsString(dto) + "\n"
+                        + mapper.writeValueAsString(other) + "\n"));
+
+        doThrow(new NotFoundException("User #2 not found")).when(bookingService).exportByOwner(eq(2L), any());
+        result = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", 2L))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void getListByOwnerAfterCursor() throws Exception {
+        when(bookingService.getSliceByOwner(anyLong(), anyString(), anyString(), anyInt()))
+                .thenReturn(new SliceImpl<>(List.of(dto), PageRequest.of(0, 1), true));
+        MvcResult result = mvc.perform(get("/bookings/owner?after=&size=1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(Headers.NEXT_CURSOR, BookingCursor.of(dto).encode()))
+                .andExpect(content().json(mapper.writeValueAsString(List.of(dto))));
+
+        verify(bookingService, never())
+                .getListByOwner(anyLong(), anyString(), anyInt(), anyInt());
+    }
+}
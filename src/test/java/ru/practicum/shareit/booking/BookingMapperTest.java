@@ -52,6 +52,7 @@ class BookingMapperTest {
         Booking booking = BookingMapper.toBooking(dto, item, new User());
         assertNotNull(dto);
         assertEquals(booking.getItem().getId(), dto.getItemId());
+        assertEquals(0, booking.getId());
         assertNull(BookingMapper.toBooking(null, item, new User()));
     }
 
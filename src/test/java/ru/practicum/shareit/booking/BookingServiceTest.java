@@ -1,12 +1,22 @@
 package ru.practicum.shareit.booking;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingBatchResult;
+import ru.practicum.shareit.booking.dto.BookingCursor;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingDtoPost;
+import ru.practicum.shareit.booking.dto.State;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exceptions.BadRequestException;
 import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.exceptions.StatusException;
@@ -17,12 +27,19 @@ import ru.practicum.shareit.item.dto.ItemDtoPost;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "shareit.booking-state.enabled=true"
+})
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 class BookingServiceTest {
 
@@ -32,6 +49,10 @@ class BookingServiceTest {
     private UserService userService;
     @Autowired
     private BookingService bookingService;
+    @Autowired
+    private BookingRepository bookingRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
 
     private ItemDtoPost itemDtoPost;
     private UserDto user1;
@@ -128,6 +149,124 @@ class BookingServiceTest {
         assertEquals(0, res.size());
     }
 
+    @Test
+    void exportByOwner() {
+        for (int batch = 0; batch < 2; batch++) {
+            List<BookingDtoPost> posts = new ArrayList<>();
+            for (int i = batch * 600; i < (batch + 1) * 600; i++) {
+                LocalDateTime start = from.plusHours(i + 2);
+                posts.add(new BookingDtoPost(itemDto.getId(), start, start.plusMinutes(30)));
+            }
+            assertTrue(bookingService.createBatch(posts, user2.getId()).stream().allMatch(r -> r.getError() == null));
+        }
+        List<BookingDto> res = new ArrayList<>();
+        bookingService.exportByOwner(user1.getId(), res::add);
+        assertEquals(1200, res.size());
+        for (int i = 1; i < res.size(); i++) {
+            assertTrue(res.get(i - 1).getStart().isAfter(res.get(i).getStart()));
+        }
+        assertEquals(user2.getId(), res.get(0).getBooker().getId());
+        assertEquals(itemDto.getId(), res.get(res.size() - 1).getItem().getId());
+
+        res.clear();
+        bookingService.exportByOwner(user2.getId(), res::add);
+        assertTrue(res.isEmpty());
+        assertThrows(NotFoundException.class, () -> bookingService.exportByOwner(1000, res::add));
+    }
+
+    @Test
+    void stateIndexMatchesDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        ItemDto item2 = itemService.createItem(itemDtoPost, user1.getId());
+        List<BookingDto> created = new ArrayList<>();
+        for (int i = -6; i <= 6; i++) {
+            ItemDto item = i % 2 == 0 ? itemDto : item2;
+            UserDto booker = i % 3 == 0 ? user2 : user3;
+            LocalDateTime start = now.plusHours(i * 5L).plusMinutes(i + 10);
+            created.add(bookingService.create(new BookingDtoPost(item.getId(), start, start.plusHours(i == 0 ? 3 : 2)),
+                    booker.getId()));
+        }
+        assertListsMatchDatabase();
+
+        bookingService.approve(created.get(1).getId(), user1.getId(), true);
+        bookingService.approve(created.get(6).getId(), user1.getId(), false);
+        bookingService.approve(created.get(11).getId(), user1.getId(), true);
+        bookingService.create(new BookingDtoPost(itemDto.getId(), now.minusMinutes(5), now.plusMinutes(5)),
+                user2.getId());
+        bookingService.createBatch(List.of(new BookingDtoPost(item2.getId(), now.plusDays(3), now.plusDays(4))),
+                user3.getId());
+        assertListsMatchDatabase();
+    }
+
+    @Test
+    void stateIndexAfterItemDelete() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        ItemDto deleted = itemService.createItem(itemDtoPost, user1.getId());
+        List<Long> kept = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            kept.add(0, bookingService.create(new BookingDtoPost(itemDto.getId(), start.plusHours(i),
+                    start.plusHours(i).plusMinutes(30)), user2.getId()).getId());
+            bookingService.create(new BookingDtoPost(deleted.getId(), start.plusDays(1).plusHours(i),
+                    start.plusDays(1).plusHours(i).plusMinutes(30)), user2.getId());
+        }
+        assertEquals(2, bookingService.getListByBooker(user2.getId(), "ALL", 0, 2).size());
+        assertEquals(4, bookingService.getListByOwner(user1.getId(), "ALL", 0, 10).size());
+
+        itemService.deleteItem(deleted.getId(), user1.getId());
+        assertEquals(kept, bookingService.getListByBooker(user2.getId(), "ALL", 0, 2).stream()
+                .map(BookingDto::getId).collect(Collectors.toList()));
+        assertEquals(kept, bookingService.getListByOwner(user1.getId(), "ALL", 0, 10).stream()
+                .map(BookingDto::getId).collect(Collectors.toList()));
+    }
+
+    private void assertListsMatchDatabase() {
+        Sort sort = Sort.by(Sort.Direction.DESC, "start");
+        LocalDateTime now = LocalDateTime.now();
+        for (State state : State.values()) {
+            for (UserDto user : List.of(user1, user2, user3)) {
+                List<Booking> byBooker;
+                List<Booking> byOwner;
+                PageRequest page = PageRequest.of(0, 100, sort);
+                switch (state) {
+                    case FUTURE:
+                        byBooker = bookingRepository.findByBookerIdAndStartAfter(user.getId(), now, page).toList();
+                        byOwner = bookingRepository.findByOwnerIdAndStartAfter(user.getId(), now, page).toList();
+                        break;
+                    case PAST:
+                        byBooker = bookingRepository.findByBookerIdAndEndBefore(user.getId(), now, page).toList();
+                        byOwner = bookingRepository.findByOwnerIdAndEndBefore(user.getId(), now, page).toList();
+                        break;
+                    case CURRENT:
+                        byBooker = bookingRepository.findByBookerIdAndStartBeforeAndEndAfter(user.getId(), now, now,
+                                page).toList();
+                        byOwner = bookingRepository.findByOwnerIdAndStartBeforeAndEndAfter(user.getId(), now, now,
+                                page).toList();
+                        break;
+                    case WAITING:
+                    case REJECTED:
+                        BookingStatus status = BookingStatus.valueOf(state.name());
+                        byBooker = bookingRepository.findByBookerIdAndStatus(user.getId(), status, page).toList();
+                        byOwner = bookingRepository.findByOwnerIdAndStatus(user.getId(), status, page).toList();
+                        break;
+                    default:
+                        byBooker = bookingRepository.findByBookerId(user.getId(), page).toList();
+                        byOwner = bookingRepository.findByOwnerId(user.getId(), page).toList();
+                }
+                assertEquals(ids(byBooker), bookingService.getListByBooker(user.getId(), state.name(), 0, 100)
+                        .stream().map(BookingDto::getId).collect(Collectors.toList()), state + " booker " + user.getId());
+                assertEquals(ids(byOwner), bookingService.getListByOwner(user.getId(), state.name(), 0, 100)
+                        .stream().map(BookingDto::getId).collect(Collectors.toList()), state + " owner " + user.getId());
+            }
+        }
+        List<Long> all = ids(bookingRepository.findByOwnerId(user1.getId(), PageRequest.of(0, 100, sort)).toList());
+        assertEquals(all.subList(4, 6), bookingService.getListByOwner(user1.getId(), "ALL", 5, 2)
+                .stream().map(BookingDto::getId).collect(Collectors.toList()));
+    }
+
+    private static List<Long> ids(List<Booking> bookings) {
+        return bookings.stream().map(Booking::getId).collect(Collectors.toList());
+    }
+
     @Test
     void getListByOwnerThrow() {
         assertThrows(BadRequestException.class, () -> bookingService.getListByOwner(user2.getId(),
@@ -136,6 +275,32 @@ class BookingServiceTest {
                 "UNKNOWN", 0, 100));
     }
 
+    @Test
+    void getSliceByBookerAndOwner() {
+        BookingDto first = bookingService.create(bookingDtoPost, user2.getId());
+        BookingDto second = bookingService.create(
+                new BookingDtoPost(itemDto.getId(), till, till.plusMinutes(10)), user2.getId());
+        BookingDto third = bookingService.create(
+                new BookingDtoPost(itemDto.getId(), till.plusMinutes(10), till.plusMinutes(20)), user2.getId());
+
+        Slice<BookingDto> page = bookingService.getSliceByBooker(user2.getId(), "ALL", "", 2);
+        assertEquals(List.of(third.getId(), second.getId()),
+                List.of(page.getContent().get(0).getId(), page.getContent().get(1).getId()));
+        assertTrue(page.hasNext());
+        String after = BookingCursor.of(page.getContent().get(1)).encode();
+        page = bookingService.getSliceByBooker(user2.getId(), "ALL", after, 2);
+        assertEquals(1, page.getNumberOfElements());
+        assertEquals(first.getId(), page.getContent().get(0).getId());
+        assertFalse(page.hasNext());
+
+        page = bookingService.getSliceByOwner(user1.getId(), "WAITING", after, 10);
+        assertEquals(1, page.getNumberOfElements());
+        assertThrows(BadRequestException.class, () -> bookingService.getSliceByOwner(user1.getId(),
+                "ALL", "broken", 10));
+        assertThrows(BadRequestException.class, () -> bookingService.getSliceByBooker(user2.getId(),
+                "ALL", "", 0));
+    }
+
     @Test
     void approve() {
         BookingDto dto = bookingService.create(bookingDtoPost, user2.getId());
@@ -153,6 +318,80 @@ class BookingServiceTest {
         assertThrows(ValidationException.class, () -> bookingService.approve(dto.getId(), user1.getId(), true));
     }
 
+    @Test
+    void createOverlapping() {
+        // finer than the microseconds the database keeps, so the stored end must match the indexed one
+        LocalDateTime end = till.withNano(123_456_789);
+        BookingDto dto = bookingService.create(new BookingDtoPost(itemDto.getId(), from, end), user2.getId());
+        bookingService.approve(dto.getId(), user1.getId(), true);
+        BookingDtoPost overlap = new BookingDtoPost(itemDto.getId(), from.plusMinutes(5), till.plusMinutes(5));
+        assertThrows(ValidationException.class, () -> bookingService.create(overlap, user3.getId()));
+        BookingDtoPost adjacent = new BookingDtoPost(itemDto.getId(), end, end.plusMinutes(5));
+        assertNotNull(bookingService.create(adjacent, user3.getId()));
+    }
+
+    @Test
+    void createBatchInsertsInJdbcBatches() {
+        int count = 120;
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<BookingDtoPost> posts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            posts.add(new BookingDtoPost(itemDto.getId(), start.plusHours(i), start.plusHours(i).plusMinutes(30)));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertTrue(bookingService.createBatch(posts, user2.getId()).stream().allMatch(r -> r.getError() == null));
+        int batches = (count + 49) / 50;
+        // booker and items, one sequence fetch and one insert batch per 50 rows, no select per booking
+        assertTrue(statistics.getPrepareStatementCount() <= 2 + 2L * batches,
+                () -> "Statements: " + statistics.getPrepareStatementCount());
+        assertEquals(count, statistics.getEntityStatistics(Booking.class.getName()).getInsertCount());
+        assertEquals(0, statistics.getEntityStatistics(Booking.class.getName()).getLoadCount());
+    }
+
+    @Test
+    void createBatch() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        ItemDto other = itemService.createItem(itemDtoPost, user2.getId());
+        BookingDto approved = bookingService.create(new BookingDtoPost(itemDto.getId(), start.plusDays(1),
+                start.plusDays(1).plusHours(2)), user3.getId());
+        bookingService.approve(approved.getId(), user1.getId(), true);
+        List<BookingDtoPost> posts = Arrays.asList(
+                new BookingDtoPost(itemDto.getId(), start, start.plusHours(2)),
+                new BookingDtoPost(itemDto.getId(), start.plusHours(1), start.plusHours(3)),
+                new BookingDtoPost(itemDto.getId(), start.plusDays(1).plusHours(1), start.plusDays(1).plusHours(3)),
+                new BookingDtoPost(other.getId(), start, start.plusHours(1)),
+                new BookingDtoPost(1000L, start, start.plusHours(1)),
+                new BookingDtoPost(itemDto.getId(), start.minusDays(2), start.minusDays(1)),
+                null);
+
+        List<BookingBatchResult> res = bookingService.createBatch(posts, user2.getId());
+        assertEquals(posts.size(), res.size());
+        assertNotNull(res.get(0).getBooking());
+        assertEquals(BookingStatus.WAITING, res.get(0).getBooking().getStatus());
+        assertEquals("Item #" + itemDto.getId() + " is already booked for this period", res.get(1).getError());
+        assertEquals("Item #" + itemDto.getId() + " is already booked for this period", res.get(2).getError());
+        assertEquals("Owner can't book item", res.get(3).getError());
+        assertEquals("Item #1000 not found", res.get(4).getError());
+        assertTrue(res.get(5).getError().contains("start "));
+        assertEquals("Booking must not be null", res.get(6).getError());
+        assertEquals(1, bookingService.getListByBooker(user2.getId(), "ALL", 0, 10).size());
+        assertThrows(NotFoundException.class, () -> bookingService.createBatch(posts, 1000));
+    }
+
+    @Test
+    void approveOverlapping() {
+        BookingDto first = bookingService.create(bookingDtoPost, user2.getId());
+        BookingDto second = bookingService.create(
+                new BookingDtoPost(itemDto.getId(), from.minusMinutes(5), till.minusMinutes(5)), user3.getId());
+        bookingService.approve(first.getId(), user1.getId(), true);
+        assertThrows(ValidationException.class, () -> bookingService.approve(second.getId(), user1.getId(), true));
+        bookingService.approve(first.getId(), user1.getId(), false);
+        BookingDto res = bookingService.approve(second.getId(), user1.getId(), true);
+        assertEquals(BookingStatus.APPROVED, res.getStatus());
+    }
+
     @Test
     void getById() {
         BookingDto dto = bookingService.create(bookingDtoPost, user2.getId());
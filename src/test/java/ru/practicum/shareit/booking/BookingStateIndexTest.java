@@ -0,0 +1,76 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.dao.BookingRepository;
+import ru.practicum.shareit.booking.dto.BookingStateEntry;
+import ru.practicum.shareit.booking.dto.State;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BookingStateIndexTest {
+    private static final long BOOKER_ID = 1;
+    private static final long OWNER_ID = 2;
+
+    private final BookingRepository repository = mock(BookingRepository.class);
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @Test
+    void writeDuringLoadIsKept() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        BookingStateEntry old = new BookingStateEntry(10, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
+        when(repository.findStateEntriesByBookerId(anyLong())).thenAnswer(inv -> {
+            loading.countDown();
+            assertTrue(release.await(5, TimeUnit.SECONDS));
+            return List.of(old);
+        });
+        BookingStateIndex index = new BookingStateIndex(repository, true, 100, Duration.ofMinutes(10));
+
+        CompletableFuture<List<Long>> load = CompletableFuture.supplyAsync(() ->
+                index.findByBooker(BOOKER_ID, State.ALL, now, 0, 10));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> write = CompletableFuture.runAsync(() -> {
+            index.put(BOOKER_ID, OWNER_ID, new BookingStateEntry(10, old.getStart(), old.getEnd(),
+                    BookingStatus.APPROVED));
+            index.put(BOOKER_ID, OWNER_ID, new BookingStateEntry(11, now.plusDays(3), now.plusDays(4),
+                    BookingStatus.WAITING));
+        });
+        Thread.sleep(100);
+        release.countDown();
+        load.get(5, TimeUnit.SECONDS);
+        write.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(11L, 10L), index.findByBooker(BOOKER_ID, State.ALL, now, 0, 10));
+        assertEquals(List.of(11L), index.findByBooker(BOOKER_ID, State.WAITING, now, 0, 10));
+    }
+
+    @Test
+    void expiresAfterLoadDespiteLocalWrites() throws Exception {
+        BookingStateEntry remote = new BookingStateEntry(20, now.plusDays(5), now.plusDays(6), BookingStatus.WAITING);
+        when(repository.findStateEntriesByBookerId(BOOKER_ID))
+                .thenReturn(List.of())
+                .thenReturn(List.of(remote));
+        BookingStateIndex index = new BookingStateIndex(repository, true, 100, Duration.ofMillis(200));
+
+        assertEquals(List.of(), index.findByBooker(BOOKER_ID, State.ALL, now, 0, 10));
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(100);
+            index.put(BOOKER_ID, OWNER_ID, new BookingStateEntry(10 + i, now.plusDays(i), now.plusDays(i + 1),
+                    BookingStatus.WAITING));
+        }
+        assertEquals(List.of(20L), index.findByBooker(BOOKER_ID, State.ALL, now, 0, 10));
+        verify(repository, times(2)).findStateEntriesByBookerId(BOOKER_ID);
+    }
+}
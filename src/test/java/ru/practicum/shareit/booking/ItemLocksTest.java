@@ -0,0 +1,190 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.exceptions.ConflictException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemLocksTest {
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 20_000;
+
+    private SimpleMeterRegistry registry;
+    private ItemLocks locks;
+    private long counter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        locks = new ItemLocks(16, Duration.ofSeconds(5), registry);
+    }
+
+    @Test
+    void sameItemIsSerialized() throws Exception {
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    inTransaction(() -> {
+                        locks.lockUntilCompletion(42);
+                        counter++;
+                    });
+                }
+                return null;
+            });
+        }
+        runAll(tasks);
+        assertEquals((long) THREADS * ITERATIONS, counter);
+        assertEquals((long) THREADS * ITERATIONS, registry.get("shareit.booking.lock.wait").timer().count());
+        assertEquals(0, registry.get("shareit.booking.lock.queue").gauge().value());
+        assertFalse(locks.stripe(42).isLocked());
+    }
+
+    @Test
+    void differentStripesRunInParallel() throws Exception {
+        List<Long> itemIds = new ArrayList<>();
+        Set<Object> used = new HashSet<>();
+        for (long id = 1; itemIds.size() < 4; id++) {
+            if (used.add(locks.stripe(id))) {
+                itemIds.add(id);
+            }
+        }
+        CyclicBarrier barrier = new CyclicBarrier(itemIds.size());
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (long id : itemIds) {
+            tasks.add(() -> {
+                inTransaction(() -> {
+                    locks.lockUntilCompletion(id);
+                    try {
+                        barrier.await(5, TimeUnit.SECONDS);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+                return null;
+            });
+        }
+        runAll(tasks);
+    }
+
+    @Test
+    void lockAllInAnyOrderDoesNotDeadlock() throws Exception {
+        List<Long> itemIds = new ArrayList<>();
+        Set<Object> used = new HashSet<>();
+        for (long id = 1; itemIds.size() < 4; id++) {
+            if (used.add(locks.stripe(id))) {
+                itemIds.add(id);
+            }
+        }
+        List<Long> reversed = new ArrayList<>(itemIds);
+        Collections.reverse(reversed);
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (List<Long> ids : List.of(itemIds, reversed)) {
+            tasks.add(() -> {
+                for (int i = 0; i < ITERATIONS; i++) {
+                    inTransaction(() -> {
+                        locks.lockAllUntilCompletion(ids);
+                        counter++;
+                    });
+                }
+                return null;
+            });
+        }
+        runAll(tasks);
+        assertEquals(2L * ITERATIONS, counter);
+        for (long id : itemIds) {
+            assertFalse(locks.stripe(id).isLocked());
+        }
+    }
+
+    @Test
+    void releasedOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            locks.lockUntilCompletion(7);
+            assertTrue(locks.stripe(7).isHeldByCurrentThread());
+            for (TransactionSynchronization sync : TransactionSynchronizationManager.getSynchronizations()) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertFalse(locks.stripe(7).isLocked());
+    }
+
+    @Test
+    void busyItemTimesOut() throws Exception {
+        ItemLocks shortLocks = new ItemLocks(16, Duration.ofMillis(50), registry);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> holder = executor.submit(() -> inTransaction(() -> {
+                shortLocks.lockUntilCompletion(42);
+                locked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+            inTransaction(() -> assertThrows(ConflictException.class, () -> shortLocks.lockUntilCompletion(42)));
+            assertFalse(shortLocks.stripe(42).isHeldByCurrentThread());
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdown();
+        }
+        inTransaction(() -> shortLocks.lockUntilCompletion(42));
+        assertFalse(shortLocks.stripe(42).isLocked());
+    }
+
+    @Test
+    void requiresTransaction() {
+        assertThrows(IllegalStateException.class, () -> locks.lockUntilCompletion(1));
+        assertThrows(IllegalArgumentException.class, () -> new ItemLocks(0, Duration.ofSeconds(5), registry));
+    }
+
+    private void inTransaction(Runnable action) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            action.run();
+        } finally {
+            List<TransactionSynchronization> syncs = TransactionSynchronizationManager.getSynchronizations();
+            TransactionSynchronizationManager.clearSynchronization();
+            for (TransactionSynchronization sync : syncs) {
+                sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            }
+        }
+    }
+
+    private void runAll(List<Callable<Void>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks)) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
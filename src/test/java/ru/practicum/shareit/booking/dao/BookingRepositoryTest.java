@@ -3,11 +3,19 @@ package ru.practicum.shareit.booking.dao;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingCursor;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoItem;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.dao.ItemRepository;
 import ru.practicum.shareit.item.model.Item;
@@ -19,7 +27,7 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class BookingRepositoryTest {
 
     @Autowired
@@ -28,14 +36,14 @@ class BookingRepositoryTest {
     private UserRepository userRepository;
     @Autowired
     private ItemRepository itemRepository;
+    @Autowired
+    private TestEntityManager em;
 
     private User user1;
     private User user2;
     private Item item;
     private Booking booking;
 
-    private Sort sort = Sort.by("start");
-
     @BeforeEach
     void setUp() {
         user1 = userRepository.save(new User(-1, "name1", "mail1@yandex.com"));
@@ -47,8 +55,8 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findByBooker_Id() {
-        Page<Booking> res = bookingRepository.findByBooker_Id(user2.getId(), Pageable.unpaged());
+    void findByBookerId() {
+        Page<Booking> res = bookingRepository.findByBookerId(user2.getId(), Pageable.unpaged());
         assertNotNull(res);
         assertTrue(!res.isEmpty());
         assertEquals(booking, res.toList().get(0));
@@ -63,57 +71,13 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findByItemOwnerId() {
-        Page<Booking> res = bookingRepository.findByItemOwnerId(user1.getId(), Pageable.unpaged());
+    void findByOwnerId() {
+        Page<Booking> res = bookingRepository.findByOwnerId(user1.getId(), Pageable.unpaged());
         assertNotNull(res);
         assertTrue(!res.isEmpty());
         assertEquals(booking, res.toList().get(0));
-    }
-
-    @Test
-    void findFirstByItemIdAndStartBeforeAndStatus() {
-        LocalDateTime date = LocalDateTime.now().plusHours(1);
-        Booking res = bookingRepository.findFirstByItemIdAndStartBeforeAndStatus(item.getId(),
-                date,
-                BookingStatus.APPROVED,
-                Sort.by("start"));
-        assertNotNull(res);
-        assertEquals(booking, res);
-    }
-
-    @Test
-    void findFirstByItemIdAndStartAfterAndStatus() {
-        LocalDateTime date = LocalDateTime.now().minusHours(1);
-        Booking res = bookingRepository.findFirstByItemIdAndStartAfterAndStatus(item.getId(),
-                date,
-                BookingStatus.APPROVED,
-                sort);
-        assertNotNull(res);
-        assertEquals(booking, res);
-    }
-
-    @Test
-    void findByItemIdInAndStartBeforeAndStatus() {
-        LocalDateTime date = LocalDateTime.now().plusHours(1);
-        List<Booking> res = bookingRepository.findByItemIdInAndStartBeforeAndStatus(
-                List.of(item.getId()), date, BookingStatus.APPROVED,
-                sort
-        );
-        assertNotNull(res);
-        assertTrue(res.size() > 0);
-        assertEquals(booking, res.get(0));
-    }
-
-    @Test
-    void findByItemIdInAndStartAfterAndStatus() {
-        LocalDateTime date = LocalDateTime.now().minusHours(1);
-        List<Booking> res = bookingRepository.findByItemIdInAndStartAfterAndStatus(
-                List.of(item.getId()), date, BookingStatus.APPROVED,
-                sort
-        );
-        assertNotNull(res);
-        assertTrue(res.size() > 0);
-        assertEquals(booking, res.get(0));
+        assertEquals(user1.getId(), res.toList().get(0).getOwnerId());
+        assertTrue(bookingRepository.findByOwnerId(user2.getId(), Pageable.unpaged()).isEmpty());
     }
 
     @Test
@@ -152,44 +116,111 @@ class BookingRepositoryTest {
     }
 
     @Test
-    void findByItemOwnerIdAndEndBefore() {
+    void findByOwnerIdAndEndBefore() {
         LocalDateTime date = LocalDateTime.now().plusDays(2);
-        Page<Booking> res = bookingRepository.findByItemOwnerIdAndEndBefore(user1.getId(), date, Pageable.unpaged());
+        Page<Booking> res = bookingRepository.findByOwnerIdAndEndBefore(user1.getId(), date, Pageable.unpaged());
         assertNotNull(res);
         assertTrue(!res.isEmpty());
         assertEquals(booking, res.toList().get(0));
     }
 
     @Test
-    void findByItemOwnerIdAndStartAfter() {
+    void findByOwnerIdAndStartAfter() {
         LocalDateTime date = LocalDateTime.now().minusDays(2);
-        Page<Booking> res = bookingRepository.findByItemOwnerIdAndStartAfter(user1.getId(), date, Pageable.unpaged());
+        Page<Booking> res = bookingRepository.findByOwnerIdAndStartAfter(user1.getId(), date, Pageable.unpaged());
         assertNotNull(res);
         assertTrue(!res.isEmpty());
         assertEquals(booking, res.toList().get(0));
     }
 
     @Test
-    void findByItemOwnerIdAndStartBeforeAndEndAfter() {
+    void findByOwnerIdAndStartBeforeAndEndAfter() {
         LocalDateTime date = LocalDateTime.now().plusHours(2);
-        Page<Booking> res = bookingRepository.findByItemOwnerIdAndStartBeforeAndEndAfter(user1.getId(), date, date, Pageable.unpaged());
+        Page<Booking> res = bookingRepository.findByOwnerIdAndStartBeforeAndEndAfter(user1.getId(), date, date, Pageable.unpaged());
         assertNotNull(res);
         assertTrue(!res.isEmpty());
         assertEquals(booking, res.toList().get(0));
     }
 
     @Test
-    void findByItemOwnerIdAndStatus() {
-        Page<Booking> res = bookingRepository.findByItemOwnerIdAndStatus(user1.getId(), BookingStatus.APPROVED, Pageable.unpaged());
+    void findByOwnerIdAndStatus() {
+        Page<Booking> res = bookingRepository.findByOwnerIdAndStatus(user1.getId(), BookingStatus.APPROVED, Pageable.unpaged());
         assertNotNull(res);
         assertTrue(!res.isEmpty());
         assertEquals(booking, res.toList().get(0));
     }
 
     @Test
-    void existsByBookerIdAndEndBefore() {
+    void existsByBookerIdAndItemIdAndEndBeforeAndStatus() {
         LocalDateTime date = LocalDateTime.now().plusDays(2);
-        boolean res = bookingRepository.existsByBookerIdAndEndBefore(user2.getId(), date);
-        assertTrue(res);
-    }
-}
\ No newline at end of file
+        Item other = itemRepository.save(new Item(-1, "other", "description", true, user1, null));
+        assertTrue(bookingRepository.existsByBookerIdAndItemIdAndEndBeforeAndStatus(
+                user2.getId(), item.getId(), date, BookingStatus.APPROVED));
+        assertFalse(bookingRepository.existsByBookerIdAndItemIdAndEndBeforeAndStatus(
+                user2.getId(), other.getId(), date, BookingStatus.APPROVED));
+        assertFalse(bookingRepository.existsByBookerIdAndItemIdAndEndBeforeAndStatus(
+                user2.getId(), item.getId(), LocalDateTime.now(), BookingStatus.APPROVED));
+        assertFalse(bookingRepository.existsByBookerIdAndItemIdAndEndBeforeAndStatus(
+                user2.getId(), item.getId(), date, BookingStatus.REJECTED));
+    }
+
+    @Test
+    void listQueriesFetchRelations() {
+        LocalDateTime from = LocalDateTime.now().minusDays(1);
+        for (int i = 0; i < 5; i++) {
+            User owner = userRepository.save(new User(-1, "owner" + i, "owner" + i + "@yandex.com"));
+            User booker = userRepository.save(new User(-1, "booker" + i, "booker" + i + "@yandex.com"));
+            Item other = itemRepository.save(new Item(-1, "item" + i, "description", true, owner, null));
+            bookingRepository.save(new Booking(-1, from.plusHours(i), from.plusHours(i + 1), other, user2, BookingStatus.WAITING));
+            bookingRepository.save(new Booking(-1, from.plusHours(i), from.plusHours(i + 1), item, booker, BookingStatus.WAITING));
+        }
+        em.flush();
+        em.clear();
+        Statistics statistics = em.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        Pageable page = PageRequest.of(0, 20, Sort.by("start").descending());
+
+        statistics.clear();
+        List<BookingDto> byBooker = bookingRepository.findByBookerId(user2.getId(), page)
+                .map(BookingMapper::toBookingDto).toList();
+        assertEquals(6, byBooker.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+
+        statistics.clear();
+        List<BookingDto> byOwner = bookingRepository.seekByOwner(user1.getId(),
+                        BookingCursor.FIRST.getStart(), BookingCursor.FIRST.getId(), PageRequest.of(0, 20))
+                .map(BookingMapper::toBookingDto).toList();
+        assertEquals(6, byOwner.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findSlotPerItem() {
+        LocalDateTime now = LocalDateTime.now();
+        Item other = itemRepository.save(new Item(-1, "other", "description", true, user1, null));
+        for (int i = 1; i <= 3; i++) {
+            bookingRepository.save(new Booking(-1, now.minusDays(i), now.minusDays(i).plusHours(1),
+                    item, user2, BookingStatus.APPROVED));
+            bookingRepository.save(new Booking(-1, now.plusDays(i), now.plusDays(i).plusHours(1),
+                    item, user2, BookingStatus.APPROVED));
+        }
+        Booking otherLast = bookingRepository.save(new Booking(-1, now.minusDays(5), now.minusDays(4),
+                other, user2, BookingStatus.APPROVED));
+        bookingRepository.save(new Booking(-1, now.minusHours(1), now, other, user2, BookingStatus.REJECTED));
+
+        List<BookingDtoItem> res = bookingRepository.findNextSlotPerItem(List.of(item.getId(), other.getId()),
+                now, BookingStatus.APPROVED);
+        assertEquals(1, res.size());
+        assertEquals(booking.getId(), res.get(0).getId());
+        assertEquals(user2.getId(), res.get(0).getBookerId());
+        assertEquals(item.getId(), res.get(0).getItemId());
+
+        res = bookingRepository.findLastSlotPerItem(List.of(item.getId(), other.getId()),
+                now, BookingStatus.APPROVED);
+        assertEquals(2, res.size());
+        assertEquals(now.minusDays(1).toLocalDate(), res.stream()
+                .filter(s -> s.getItemId() == item.getId()).findFirst().orElseThrow().getStart().toLocalDate());
+        assertEquals(otherLast.getId(), res.stream()
+                .filter(s -> s.getItemId() == other.getId()).findFirst().orElseThrow().getId());
+    }
+}
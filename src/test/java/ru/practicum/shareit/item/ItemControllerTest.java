@@ -7,8 +7,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.common.Headers;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.dto.CommentCursor;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentDtoPost;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -85,11 +91,14 @@ class ItemControllerTest {
     void getItemById() throws Exception {
         when(itemService.getItem(anyLong(), anyLong()))
                 .thenReturn(dto);
-        mvc.perform(get("/items/1")
+        MvcResult result = mvc.perform(get("/items/1")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(dto)));
     }
@@ -98,24 +107,56 @@ class ItemControllerTest {
     void getItemsByOwner() throws Exception {
         when(itemService.getItemsByOwner(anyLong(), anyInt(), anyInt()))
                 .thenReturn(List.of(dto));
-        mvc.perform(get("/items")
+        MvcResult result = mvc.perform(get("/items")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(List.of(dto))));
     }
 
+    @Test
+    void getComments() throws Exception {
+        when(itemService.getComments(1L, "abc", 1))
+                .thenReturn(new SliceImpl<>(List.of(commentDto), PageRequest.ofSize(1), true));
+        MvcResult result = mvc.perform(get("/items/1/comments")
+                        .param("after", "abc")
+                        .param("size", "1")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(Headers.NEXT_CURSOR, CommentCursor.of(commentDto).encode()))
+                .andExpect(content().json(mapper.writeValueAsString(List.of(commentDto))));
+
+        when(userService.getUser(2L)).thenThrow(new NotFoundException("User #2 not found"));
+        result = mvc.perform(get("/items/1/comments")
+                        .header("X-Sharer-User-Id", 2L)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void search() throws Exception {
         when(itemService.search(anyString(), anyInt(), anyInt()))
                 .thenReturn(List.of(dto));
-        mvc.perform(get("/items/search?text='name'")
+        MvcResult result = mvc.perform(get("/items/search?text='name'")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(List.of(dto))));
     }
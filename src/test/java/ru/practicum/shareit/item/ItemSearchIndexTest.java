@@ -0,0 +1,58 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dao.ItemRepository;
+import ru.practicum.shareit.item.dto.ItemIndexDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ItemSearchIndexTest {
+    private final ItemRepository repository = mock(ItemRepository.class);
+    private final ItemSearchIndex index = new ItemSearchIndex(repository);
+
+    @Test
+    void rebuildKeepsNewerWrites() {
+        when(repository.findForIndex(anyLong(), any())).thenAnswer(inv -> {
+            Item updated = new Item(1, "Дрель ударная", "новое описание", true, null, null);
+            updated.setVersion(1);
+            index.index(updated);
+            index.remove(2);
+            return List.of(new ItemIndexDto(1, "Отвертка", "старое описание", true, 0),
+                    new ItemIndexDto(2, "Дрель аккумуляторная", "удалена", true, 0),
+                    new ItemIndexDto(3, "Дрель", "без изменений", true, 0));
+        });
+        index.rebuild();
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(3L, 1L), index.search("дрель", 0, 10));
+        assertEquals(List.of(), index.search("отвертка", 0, 10));
+
+        index.remove(3);
+        index.index(new Item(2, "Дрель", "снова", true, null, null));
+        assertEquals(List.of(2L, 1L), index.search("дрель", 0, 10));
+    }
+
+    @Test
+    void shortWordsMatchByPrefix() {
+        when(repository.findForIndex(anyLong(), any())).thenReturn(List.of(
+                new ItemIndexDto(1, "Дрель", "ударная", true, 0),
+                new ItemIndexDto(2, "Пила", "для дерева", true, 0),
+                new ItemIndexDto(3, "Отвертка", "набор бит с ручкой", true, 0)));
+        index.rebuild();
+
+        assertEquals(List.of(1L), index.search("др", 0, 10));
+        assertEquals(List.of(2L), index.search("де", 0, 10));
+        assertEquals(List.of(), index.search("ре", 0, 10));
+        assertEquals(List.of(3L), index.search("с", 0, 10));
+        assertEquals(List.of(), index.search("д", 0, 10));
+        assertEquals(List.of(3L), index.search("ручкой набор", 0, 10));
+        assertEquals(List.of(), index.search("ручкой дрель", 0, 10));
+    }
+}
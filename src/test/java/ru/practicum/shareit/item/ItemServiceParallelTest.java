@@ -0,0 +1,58 @@
+package ru.practicum.shareit.item;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoPost;
+import ru.practicum.shareit.item.dto.CommentDtoPost;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoPost;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "shareit.query.parallel=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ItemServiceParallelTest {
+
+    @Autowired
+    private ItemService itemService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private BookingService bookingService;
+    @Autowired
+    private ThreadPoolTaskExecutor queryTaskExecutor;
+
+    @Test
+    void getItemsByOwner() {
+        UserDto owner = userService.createUser(new UserDto(0, "owner", "owner@google.com"));
+        UserDto booker = userService.createUser(new UserDto(0, "booker", "booker@google.com"));
+        ItemDto item = itemService.createItem(new ItemDtoPost("name", "description", true, null), owner.getId());
+        LocalDateTime now = LocalDateTime.now();
+        BookingDto last = bookingService.create(
+                new BookingDtoPost(item.getId(), now.minusDays(2), now.minusDays(1)), booker.getId());
+        BookingDto next = bookingService.create(
+                new BookingDtoPost(item.getId(), now.plusDays(1), now.plusDays(2)), booker.getId());
+        bookingService.approve(last.getId(), owner.getId(), true);
+        bookingService.approve(next.getId(), owner.getId(), true);
+        itemService.createComment(new CommentDtoPost("comment"), item.getId(), booker.getId());
+
+        long submitted = queryTaskExecutor.getThreadPoolExecutor().getTaskCount();
+        List<ItemDto> res = itemService.getItemsByOwner(owner.getId(), 0, 10);
+
+        assertEquals(1, res.size());
+        assertEquals(last.getId(), res.get(0).getLastBooking().getId());
+        assertEquals(next.getId(), res.get(0).getNextBooking().getId());
+        assertEquals(1, res.get(0).getComments().size());
+        assertEquals(submitted + 3, queryTaskExecutor.getThreadPoolExecutor().getTaskCount());
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.booking.BookingService;
 import ru.practicum.shareit.booking.dto.BookingDto;
@@ -11,6 +12,7 @@ import ru.practicum.shareit.booking.dto.BookingDtoPost;
 import ru.practicum.shareit.exceptions.BadRequestException;
 import ru.practicum.shareit.exceptions.ForbiddenException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.dto.CommentCursor;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.CommentDtoPost;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -19,7 +21,9 @@ import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.UserDto;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -60,6 +64,66 @@ class ItemServiceTest {
         assertEquals(dto, res);
     }
 
+    @Test
+    void getItemBookings() {
+        LocalDateTime now = LocalDateTime.now();
+        ItemDto dto = itemService.createItem(post, user1.getId());
+        BookingDto past = bookingService.create(
+                new BookingDtoPost(dto.getId(), now.minusDays(2), now.minusDays(1)), user2.getId());
+        BookingDto future = bookingService.create(
+                new BookingDtoPost(dto.getId(), now.plusDays(1), now.plusDays(2)), user2.getId());
+        BookingDto later = bookingService.create(
+                new BookingDtoPost(dto.getId(), now.plusDays(3), now.plusDays(4)), user2.getId());
+        ItemDto res = itemService.getItem(dto.getId(), user1.getId());
+        assertNull(res.getLastBooking());
+        assertNull(res.getNextBooking());
+
+        bookingService.approve(past.getId(), user1.getId(), true);
+        bookingService.approve(later.getId(), user1.getId(), true);
+        res = itemService.getItem(dto.getId(), user1.getId());
+        assertEquals(past.getId(), res.getLastBooking().getId());
+        assertEquals(later.getId(), res.getNextBooking().getId());
+        assertSameBookings(res, itemService.getItemsByOwner(user1.getId(), 0, 10).get(0));
+
+        bookingService.approve(future.getId(), user1.getId(), true);
+        res = itemService.getItem(dto.getId(), user1.getId());
+        assertEquals(future.getId(), res.getNextBooking().getId());
+        assertEquals(user2.getId(), res.getNextBooking().getBookerId());
+        assertSameBookings(res, itemService.getItemsByOwner(user1.getId(), 0, 10).get(0));
+        assertNull(itemService.getItem(dto.getId(), user2.getId()).getNextBooking());
+    }
+
+    private void assertSameBookings(ItemDto expected, ItemDto actual) {
+        assertEquals(expected.getLastBooking(), actual.getLastBooking());
+        assertEquals(expected.getNextBooking(), actual.getNextBooking());
+    }
+
+    @Test
+    void getItemTag() {
+        LocalDateTime now = LocalDateTime.now();
+        ItemDto dto = itemService.createItem(post, user1.getId());
+        String ownerTag = itemService.getItemTag(dto.getId(), user1.getId());
+        String guestTag = itemService.getItemTag(dto.getId(), user2.getId());
+        assertNotNull(ownerTag);
+        assertNotEquals(ownerTag, guestTag);
+        assertEquals(ownerTag, itemService.getItemTag(dto.getId(), user1.getId()));
+        assertNull(itemService.getItemTag(dto.getId() + 100, user1.getId()));
+        assertThrows(NotFoundException.class, () -> itemService.getItemTag(dto.getId(), user2.getId() + 100));
+
+        itemService.updateItem(new ItemDtoPost(null, "new text", null, null), dto.getId(), user1.getId());
+        assertNotEquals(guestTag, guestTag = itemService.getItemTag(dto.getId(), user2.getId()));
+
+        BookingDto booking = bookingService.create(
+                new BookingDtoPost(dto.getId(), now.minusHours(2), now.minusHours(1)), user2.getId());
+        ownerTag = itemService.getItemTag(dto.getId(), user1.getId());
+        bookingService.approve(booking.getId(), user1.getId(), true);
+        assertNotEquals(ownerTag, itemService.getItemTag(dto.getId(), user1.getId()));
+        assertEquals(guestTag, itemService.getItemTag(dto.getId(), user2.getId()));
+
+        itemService.createComment(new CommentDtoPost("comment"), dto.getId(), user2.getId());
+        assertNotEquals(guestTag, itemService.getItemTag(dto.getId(), user2.getId()));
+    }
+
     @Test
     void getItemsByOwner() {
         ItemDto dto = itemService.createItem(post, user1.getId());
@@ -85,6 +149,48 @@ class ItemServiceTest {
                 itemService.search("escr", -10, 100));
     }
 
+    @Test
+    void searchRanking() {
+        ItemDto inDescription = itemService.createItem(
+                new ItemDtoPost("Молоток", "Дрель не нужна", true, null), user1.getId());
+        ItemDto inName = itemService.createItem(
+                new ItemDtoPost("Дрель ударная", "Мощная", true, null), user1.getId());
+        ItemDto unavailable = itemService.createItem(
+                new ItemDtoPost("Дрель", "Сломана", false, null), user1.getId());
+        List<ItemDto> res = itemService.search("дрел", 0, 100);
+        assertEquals(List.of(inName.getId(), inDescription.getId()),
+                res.stream().map(ItemDto::getId).collect(Collectors.toList()));
+        assertEquals(1, itemService.search("дрель удар", 0, 100).size());
+        assertEquals(1, itemService.search("дрель", 1, 1).size());
+
+        itemService.updateItem(new ItemDtoPost(null, null, true, null), unavailable.getId(), user1.getId());
+        assertEquals(3, itemService.search("дрель", 0, 100).size());
+        itemService.deleteItem(inName.getId(), user1.getId());
+        assertEquals(2, itemService.search("дрель", 0, 100).size());
+    }
+
+    @Test
+    void searchFuzzy() {
+        ItemDto drill = itemService.createItem(
+                new ItemDtoPost("Дрель", "Ударная", true, null), user1.getId());
+        ItemDto drills = itemService.createItem(
+                new ItemDtoPost("Набор для дрели", "Сверла", true, null), user1.getId());
+        ItemDto tree = itemService.createItem(
+                new ItemDtoPost("Ёлка", "Искусственная", true, null), user1.getId());
+        assertEquals(List.of(drill.getId(), drills.getId()), itemService.search("дрель", 0, 100).stream()
+                .map(ItemDto::getId).collect(Collectors.toList()));
+        assertEquals(drill.getId(), itemService.search("дрекь", 0, 100).get(0).getId());
+        assertEquals(List.of(drill.getId()), itemService.search("дрекь ударная", 0, 100).stream()
+                .map(ItemDto::getId).collect(Collectors.toList()));
+        assertEquals(List.of(tree.getId()), itemService.search("ЕЛКА", 0, 100).stream()
+                .map(ItemDto::getId).collect(Collectors.toList()));
+        assertEquals(List.of(tree.getId()), itemService.search("искуственная", 0, 100).stream()
+                .map(ItemDto::getId).collect(Collectors.toList()));
+        assertEquals(List.of(drills.getId()), itemService.search("дрель", 1, 1).stream()
+                .map(ItemDto::getId).collect(Collectors.toList()));
+        assertEquals(0, itemService.search("дрель", 2, 1).size());
+    }
+
     @Test
     void updateItem() {
         ItemDto dto = itemService.createItem(post, user1.getId());
@@ -115,13 +221,66 @@ class ItemServiceTest {
         LocalDateTime from = LocalDateTime.now().minusHours(1);
         LocalDateTime till = from.plusMinutes(10);
         ItemDto dto = itemService.createItem(post, user1.getId());
+        ItemDto other = itemService.createItem(post, user1.getId());
         BookingDto post = bookingService.create(
                 new BookingDtoPost(dto.getId(), from, till),
                 user2.getId());
+        BookingDto future = bookingService.create(
+                new BookingDtoPost(other.getId(), from.plusDays(1), till.plusDays(1)),
+                user2.getId());
         CommentDtoPost commentPost = new CommentDtoPost("comment");
+        assertThrows(BadRequestException.class, () ->
+                itemService.createComment(commentPost, dto.getId(), user2.getId()));
+        bookingService.approve(post.getId(), user1.getId(), true);
+        bookingService.approve(future.getId(), user1.getId(), true);
         CommentDto comment = itemService.createComment(commentPost, dto.getId(), user2.getId());
         assertEquals("comment", comment.getText());
         assertThrows(BadRequestException.class, () ->
                 itemService.createComment(commentPost, dto.getId(), user1.getId()));
+        assertThrows(BadRequestException.class, () ->
+                itemService.createComment(commentPost, other.getId(), user2.getId()));
+    }
+
+    @Test
+    void getComments() {
+        LocalDateTime from = LocalDateTime.now().minusHours(1);
+        ItemDto dto = itemService.createItem(post, user1.getId());
+        ItemDto other = itemService.createItem(post, user1.getId());
+        BookingDto booking = bookingService.create(
+                new BookingDtoPost(dto.getId(), from, from.plusMinutes(10)), user2.getId());
+        BookingDto otherBooking = bookingService.create(
+                new BookingDtoPost(other.getId(), from, from.plusMinutes(10)), user2.getId());
+        bookingService.approve(booking.getId(), user1.getId(), true);
+        bookingService.approve(otherBooking.getId(), user1.getId(), true);
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 15; i++) {
+            created.add(0, itemService.createComment(new CommentDtoPost("c" + i), dto.getId(), user2.getId()).getId());
+        }
+        itemService.createComment(new CommentDtoPost("other"), other.getId(), user2.getId());
+
+        ItemDto res = itemService.getItem(dto.getId(), user1.getId());
+        assertEquals(15, res.getCommentCount());
+        assertEquals(created.subList(0, 10), res.getComments().stream().map(CommentDto::getId)
+                .collect(Collectors.toList()));
+
+        List<ItemDto> owned = itemService.getItemsByOwner(user1.getId(), 0, 10);
+        assertEquals(15, owned.get(0).getCommentCount());
+        assertEquals(created.subList(0, 10), owned.get(0).getComments().stream().map(CommentDto::getId)
+                .collect(Collectors.toList()));
+        assertEquals(1, owned.get(1).getCommentCount());
+        assertEquals(1, owned.get(1).getComments().size());
+
+        List<Long> paged = new ArrayList<>();
+        String after = null;
+        Slice<CommentDto> slice;
+        do {
+            slice = itemService.getComments(dto.getId(), after, 4);
+            slice.forEach(c -> paged.add(c.getId()));
+            after = slice.hasNext() ? CommentCursor.of(slice.getContent().get(3)).encode() : null;
+        } while (after != null);
+        assertEquals(created, paged);
+        assertThrows(NotFoundException.class, () -> itemService.getComments(other.getId() + 100, null, 4));
+        assertThrows(BadRequestException.class, () -> itemService.getComments(dto.getId(), null, 0));
+        assertThrows(BadRequestException.class, () -> itemService.getComments(dto.getId(), "???", 4));
     }
 }
\ No newline at end of file
@@ -4,7 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
-import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dao.UserRepository;
@@ -42,18 +42,11 @@ class CommentRepositoryTest {
     }
 
     @Test
-    void findByItemId() {
-        List<Comment> res = commentRepository.findByItemId(item.getId());
-        assertNotNull(res);
-        assertTrue(res.size() > 0);
-        assertEquals(comment, res.get(0));
+    void findDtoByIdIn() {
+        List<CommentDto> res = commentRepository.findDtoByIdIn(List.of(comment.getId()));
+        assertEquals(1, res.size());
+        assertEquals(comment.getId(), res.get(0).getId());
+        assertEquals(item.getId(), res.get(0).getItemId());
+        assertEquals(user2.getName(), res.get(0).getAuthorName());
     }
-
-    @Test
-    void findByItem_IdIn() {
-        List<Comment> res = commentRepository.findByItem_IdIn(List.of(item.getId()), Sort.by("created"));
-        assertNotNull(res);
-        assertTrue(res.size() > 0);
-        assertEquals(comment, res.get(0));
-    }
-}
\ No newline at end of file
+}
@@ -6,6 +6,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.request.ItemRequest;
@@ -79,4 +81,14 @@ class ItemRepositoryTest {
         assertTrue(res.size() > 0);
         assertEquals(item, res.get(0));
     }
-}
\ No newline at end of file
+
+    @Test
+    void findDtoProjections() {
+        Page<ItemDto> res = itemRepository.findDtoByOwnerId(user1.getId(), Pageable.unpaged());
+        assertEquals(List.of(ItemMapper.toItemDto(item)), res.toList());
+        assertEquals(List.of(ItemMapper.toItemDtoForRequest(item)),
+                itemRepository.findDtoByRequestIdIn(List.of(request.getId())));
+        assertEquals(List.of(ItemMapper.toItemDtoForRequest(item)),
+                itemRepository.findDtoByRequestId(request.getId()));
+    }
+}
@@ -6,6 +6,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import ru.practicum.shareit.exceptions.BadRequestException;
+import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoPost;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.dto.ItemRequestDtoPost;
 import ru.practicum.shareit.request.dto.ItemRequestDtoResponse;
@@ -24,6 +28,8 @@ class ItemRequestServiceTest {
     private ItemRequestService service;
     @Autowired
     private UserService userService;
+    @Autowired
+    private ItemService itemService;
 
     private ItemRequestDtoPost post;
     private UserDto user1;
@@ -51,6 +57,24 @@ class ItemRequestServiceTest {
         assertEquals(dto.getId(), res.getId());
     }
 
+    @Test
+    void getTag() {
+        ItemRequestDto dto = service.create(post, user1.getId());
+        String tag = service.getTag(dto.getId(), user2.getId());
+        assertNotNull(tag);
+        assertNull(service.getTag(dto.getId() + 100, user2.getId()));
+
+        ItemDto item = itemService.createItem(new ItemDtoPost("name", "description", true, dto.getId()),
+                user2.getId());
+        assertNotEquals(tag, tag = service.getTag(dto.getId(), user2.getId()));
+        itemService.updateItem(new ItemDtoPost("new name", null, null, null), item.getId(), user2.getId());
+        assertNotEquals(tag, tag = service.getTag(dto.getId(), user2.getId()));
+        assertEquals(tag, service.getTag(dto.getId(), user1.getId()));
+        itemService.deleteItem(item.getId(), user2.getId());
+        assertNotEquals(tag, service.getTag(dto.getId(), user2.getId()));
+        assertThrows(NotFoundException.class, () -> service.getTag(dto.getId(), 1000));
+    }
+
     @Test
     void getByUserId() {
         ItemRequestDto dto = service.create(post, user1.getId());
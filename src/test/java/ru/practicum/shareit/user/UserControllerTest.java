@@ -9,11 +9,19 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.common.Headers;
+import ru.practicum.shareit.exceptions.NotFoundException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResult;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -51,6 +59,55 @@ class UserControllerTest {
                 .andExpect(content().json(mapper.writeValueAsString(dto)));
     }
 
+    @Test
+    void importUsers() throws Exception {
+        List<UserDto> rows = new ArrayList<>();
+        doAnswer(invocation -> {
+            Iterator<UserDto> users = invocation.getArgument(0);
+            Consumer<UserImportResult> consumer = invocation.getArgument(1);
+            long index = 0;
+            while (users.hasNext()) {
+                UserDto user = users.next();
+                rows.add(user);
+                consumer.accept(user == null
+                        ? new UserImportResult(index++, null, "Некорректная строка")
+                        : new UserImportResult(index++, user, null));
+            }
+            return null;
+        }).when(userService).importUsers(any(), any());
+
+        String csv = "name,email\nname,mail@yandex.com\n\n\"Doe, John\",john@yandex.com\nbroken\n";
+        mvc.perform(post("/users/import")
+                        .content(csv.getBytes(StandardCharsets.UTF_8))
+                        .contentType("text/csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().bytes((
+                        mapper.writeValueAsString(new UserImportResult(0, user("name", "mail@yandex.com"), null)) + "\n"
+                        + mapper.writeValueAsString(new UserImportResult(1, user("Doe, John", "john@yandex.com"), null))
+                        + "\n" + mapper.writeValueAsString(new UserImportResult(2, null, "Некорректная строка"))
+                        + "\n").getBytes(StandardCharsets.UTF_8)));
+        assertEquals(3, rows.size());
+
+        rows.clear();
+        String ndjson = mapper.writeValueAsString(dto) + "\n{broken\n";
+        mvc.perform(post("/users/import")
+                        .content(ndjson.getBytes(StandardCharsets.UTF_8))
+                        .contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk());
+        assertEquals(dto, rows.get(0));
+        assertNull(rows.get(1));
+
+        mvc.perform(post("/users/import")
+                        .content(ndjson)
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnsupportedMediaType());
+    }
+
+    private static UserDto user(String name, String email) {
+        return new UserDto(0, name, email);
+    }
+
     @Test
     void updateUser() throws Exception {
         when(userService.updateUser(any(), anyLong()))
@@ -69,26 +126,100 @@ class UserControllerTest {
     void findUserById() throws Exception {
         when(userService.getUser(anyLong()))
                 .thenReturn(dto);
-        mvc.perform(get("/users/1")
+        MvcResult result = mvc.perform(get("/users/1")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().json(mapper.writeValueAsString(dto)));
     }
 
+    @Test
+    void findUserByIdNotFound() throws Exception {
+        when(userService.getUser(anyLong()))
+                .thenThrow(new NotFoundException("User #1 not found"));
+        MvcResult result = mvc.perform(get("/users/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void findUserByIdNotModified() throws Exception {
+        when(userService.getUserTag(anyLong()))
+                .thenReturn("1-3");
+        when(userService.getUser(anyLong()))
+                .thenReturn(dto);
+        MvcResult result = mvc.perform(get("/users/1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "W/\"1-3\""));
+
+        result = mvc.perform(get("/users/1")
+                        .header("If-None-Match", "\"0-1\", W/\"1-3\"")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "W/\"1-3\""))
+                .andExpect(content().string(""));
+        verify(userService, times(1)).getUser(1);
+    }
+
     @Test
     void getAllUsers() throws Exception {
-        when(userService.getAllUsers())
-                .thenReturn(List.of(dto));
-        mvc.perform(get("/users")
+        UserDto other = new UserDto(2, "name2", "mail2@yandex.com");
+        doAnswer(invocation -> {
+            Consumer<UserDto> consumer = invocation.getArgument(0);
+            consumer.accept(dto);
+            consumer.accept(other);
+            return null;
+        }).when(userService).exportUsers(any());
+        MvcResult result = mvc.perform(get("/users")
                         .characterEncoding(StandardCharsets.UTF_8)
                         .contentType(MediaType.APPLICATION_JSON)
                         .header("X-Sharer-User-Id", 1L)
                         .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(List.of(dto, other)), true));
+    }
+
+    @Test
+    void getUsersAfter() throws Exception {
+        when(userService.getUsers(0, 1))
+                .thenReturn(List.of(dto));
+        MvcResult result = mvc.perform(get("/users?after=0&size=1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(Headers.NEXT_CURSOR, "1"))
                 .andExpect(content().json(mapper.writeValueAsString(List.of(dto))));
+
+        when(userService.getUsers(1, 10))
+                .thenReturn(List.of());
+        result = mvc.perform(get("/users?after=1")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(Headers.NEXT_CURSOR))
+                .andExpect(content().json("[]"));
     }
 
     @Test
@@ -0,0 +1,75 @@
+package ru.practicum.shareit.user;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.user.dto.UserDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserImportReaderTest {
+
+    @Test
+    void quotedCsvFields() throws IOException {
+        List<UserDto> res = readCsv("name,email",
+                "\"Doe, John\" , \"john@yandex.com\"",
+                "\"Say \"\"hi\"\"\",hi@yandex.com",
+                "name,\"a,b\"@yandex.com",
+                "a,b,c",
+                "\"unclosed,mail@yandex.com");
+        assertEquals(Arrays.asList(
+                new UserDto(0, "Doe, John", "john@yandex.com"),
+                new UserDto(0, "Say \"hi\"", "hi@yandex.com"),
+                null,
+                null,
+                null), res);
+    }
+
+    @Test
+    void multiLineField() throws IOException {
+        assertEquals(List.of(new UserDto(0, "multi\nline", "multi@yandex.com")),
+                readCsv("\"multi", "line\",multi@yandex.com"));
+    }
+
+    @Test
+    void strayQuoteStopsAtRecordLimit() throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("\"stray,stray@yandex.com");
+        for (int i = 0; i < UserImportReader.MAX_RECORD_LINES * 2; i++) {
+            lines.add("name" + i + ",mail" + i + "@yandex.com");
+        }
+        List<UserDto> res = readCsv(lines.toArray(String[]::new));
+        assertEquals(lines.size() - (UserImportReader.MAX_RECORD_LINES - 1), res.size());
+        assertNull(res.get(0));
+        assertEquals(new UserDto(0, "name15", "mail15@yandex.com"), res.get(1));
+    }
+
+    @Test
+    void longLineIsRejected() throws IOException {
+        List<UserDto> res = readCsv("a".repeat(UserImportReader.MAX_LINE_LENGTH + 1) + ",long@yandex.com",
+                "short,short@yandex.com");
+        assertEquals(Arrays.asList(null, new UserDto(0, "short", "short@yandex.com")), res);
+    }
+
+    @Test
+    void closesReader() throws IOException {
+        BufferedReader reader = new BufferedReader(new StringReader("name,mail@yandex.com"));
+        new UserImportReader(reader, new ObjectMapper(), true).close();
+        assertThrows(IOException.class, reader::readLine);
+    }
+
+    private static List<UserDto> readCsv(String... lines) throws IOException {
+        List<UserDto> res = new ArrayList<>();
+        try (UserImportReader reader = new UserImportReader(
+                new BufferedReader(new StringReader(String.join("\n", lines))), new ObjectMapper(), true)) {
+            reader.forEachRemaining(res::add);
+        }
+        return res;
+    }
+}
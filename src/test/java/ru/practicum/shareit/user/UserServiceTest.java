@@ -1,16 +1,25 @@
 package ru.practicum.shareit.user;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.support.TransactionTemplate;
 import ru.practicum.shareit.exceptions.BadRequestException;
 import ru.practicum.shareit.exceptions.NotFoundException;
+import ru.practicum.shareit.user.dto.CachedUser;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserImportResult;
 import ru.practicum.shareit.user.model.User;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,6 +29,10 @@ class UserServiceTest {
 
     @Autowired
     private UserService userService;
+    @Autowired
+    private CacheManager cacheManager;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     private User user;
     private UserDto dto;
@@ -48,22 +61,75 @@ class UserServiceTest {
     }
 
     @Test
-    void getAllUsers() {
+    void importUsers() {
+        userService.createUser(dto);
+        List<UserDto> rows = IntStream.range(0, 2500)
+                .mapToObj(i -> new UserDto(0, "user" + i, "user" + i + "@mail.com"))
+                .collect(Collectors.toCollection(ArrayList::new));
+        rows.set(10, new UserDto(0, "dup", "user5@mail.com"));
+        rows.set(1500, new UserDto(0, "dup", "user5@mail.com"));
+        rows.set(20, new UserDto(0, "taken", dto.getEmail()));
+        rows.set(30, new UserDto(0, "", "blank@mail.com"));
+        rows.set(40, new UserDto(0, "bad", "not an email"));
+        rows.set(50, null);
+
+        List<UserImportResult> res = new ArrayList<>();
+        userService.importUsers(rows.iterator(), res::add);
+        assertEquals(2500, res.size());
+        for (int i = 0; i < res.size(); i++) {
+            assertEquals(i, res.get(i).getIndex());
+        }
+        for (int i : new int[]{10, 1500, 20, 30, 40, 50}) {
+            assertNull(res.get(i).getUser(), "row " + i);
+            assertNotNull(res.get(i).getError(), "row " + i);
+        }
+        assertTrue(res.get(20).getError().contains("уже занят"));
+        assertTrue(res.get(1500).getError().contains("уже занят"));
+        assertEquals(2494, res.stream().filter(r -> r.getError() == null).count());
+
+        UserImportResult created = res.get(2499);
+        assertEquals("user2499@mail.com", created.getUser().getEmail());
+        assertEquals(created.getUser(), userService.getUser(created.getUser().getId()));
+        assertEquals(2495, allUsers().size());
+    }
+
+    @Test
+    void exportUsers() {
         UserDto res = userService.createUser(dto);
-        List<UserDto> list = userService.getAllUsers();
+        List<UserDto> list = allUsers();
         assertNotNull(list);
         assertTrue(list.size() > 0);
         assertEquals(res, list.get(0));
     }
 
+    @Test
+    void getUsers() {
+        List<UserDto> created = IntStream.range(0, 5)
+                .mapToObj(i -> userService.createUser(new UserDto(0, "user" + i, "user" + i + "@mail.com")))
+                .collect(Collectors.toList());
+        assertEquals(created.subList(0, 2), userService.getUsers(0, 2));
+        assertEquals(created.subList(2, 4), userService.getUsers(created.get(1).getId(), 2));
+        assertEquals(created.subList(4, 5), userService.getUsers(created.get(3).getId(), 2));
+        assertTrue(userService.getUsers(created.get(4).getId(), 2).isEmpty());
+        assertThrows(BadRequestException.class, () -> userService.getUsers(0, 0));
+
+        List<UserDto> exported = new ArrayList<>();
+        userService.exportUsers(exported::add);
+        assertEquals(created, exported);
+    }
+
     @Test
     void updateUser() {
         UserDto res = userService.createUser(dto);
+        String tag = userService.getUserTag(res.getId());
         res.setEmail("newmail@yandex.com");
         userService.updateUser(res, res.getId());
         UserDto user = userService.getUser(res.getId());
         assertNotNull(user);
         assertEquals("newmail@yandex.com", user.getEmail());
+        assertNotEquals(tag, tag = userService.getUserTag(res.getId()));
+        userService.updateUser(new UserDto(0, "new name", null), res.getId());
+        assertNotEquals(tag, userService.getUserTag(res.getId()));
         res.setEmail("");
         assertThrows(BadRequestException.class, () -> userService.updateUser(res, res.getId()));
         res.setEmail("newmail@yandex.com");
@@ -74,10 +140,61 @@ class UserServiceTest {
     @Test
     void deleteUser() {
         UserDto res = userService.createUser(dto);
-        List<UserDto> list = userService.getAllUsers();
+        List<UserDto> list = allUsers();
         assertTrue(list.contains(res));
         userService.deleteUser(res.getId());
-        list = userService.getAllUsers();
+        list = allUsers();
         assertFalse(list.contains(res));
     }
+
+    @Test
+    void userCache() {
+        UserDto res = userService.createUser(dto);
+        CacheStats before = cacheStats();
+        userService.getUser(res.getId());
+        userService.getUser(res.getId());
+        assertEquals(1, cacheStats().minus(before).missCount());
+        assertEquals(1, cacheStats().minus(before).hitCount());
+
+        userService.getUser(res.getId()).setName("changed");
+        assertEquals(res.getName(), userService.getUser(res.getId()).getName());
+
+        res.setName("newName");
+        userService.updateUser(res, res.getId());
+        assertEquals("newName", userService.getUser(res.getId()).getName());
+        userService.deleteUser(res.getId());
+        assertThrows(NotFoundException.class, () -> userService.getUser(res.getId()));
+    }
+
+    @Test
+    void userCacheEvictedAfterCommit() {
+        UserDto res = userService.createUser(dto);
+        Cache cache = cacheManager.getCache(UserService.CACHE);
+        userService.getUser(res.getId());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            userService.updateUser(new UserDto(0, "newName", null), res.getId());
+            assertEquals(res, cache.get(res.getId(), CachedUser.class).toUserDto());
+            status.setRollbackOnly();
+        });
+        assertEquals(res, cache.get(res.getId(), CachedUser.class).toUserDto());
+        assertEquals(res, userService.getUser(res.getId()));
+
+        transactionTemplate.executeWithoutResult(status ->
+                userService.updateUser(new UserDto(0, "newName", null), res.getId()));
+        assertNull(cache.get(res.getId()));
+        assertEquals("newName", userService.getUser(res.getId()).getName());
+    }
+
+    private List<UserDto> allUsers() {
+        List<UserDto> res = new ArrayList<>();
+        userService.exportUsers(res::add);
+        return res;
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheStats cacheStats() {
+        return ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) cacheManager.getCache(UserService.CACHE)
+                .getNativeCache()).stats();
+    }
 }
\ No newline at end of file